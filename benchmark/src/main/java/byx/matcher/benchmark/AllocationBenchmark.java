@@ -0,0 +1,52 @@
+package byx.matcher.benchmark;
+
+import byx.matcher.MatchContext;
+import byx.matcher.Matcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static byx.matcher.Matcher.*;
+
+/**
+ * 预热后短输入上每次匹配的堆分配，通过-prof gc的gc.alloc.rate.norm观察，稳定状态下应为0
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AllocationBenchmark {
+    private final Matcher combinators = ch('a').many().and(ch('b').repeat(2, 5)).and(str("cd").or(str("ce")));
+    private final MatchContext ctx = new MatchContext();
+
+    private String arithmetic;
+    private String json;
+
+    @Setup
+    public void setup() {
+        arithmetic = InputGenerator.arithmetic(256);
+        json = InputGenerator.json(256);
+    }
+
+    @Benchmark
+    public boolean combinators() {
+        return combinators.match("aaaabbbce");
+    }
+
+    @Benchmark
+    public boolean arithmetic() {
+        return Grammars.Arithmetic.expr.match(arithmetic);
+    }
+
+    @Benchmark
+    public boolean json() {
+        return Grammars.Json.jsonObj.match(json);
+    }
+
+    @Benchmark
+    public boolean jsonWithContext() {
+        return Grammars.Json.jsonObj.match(json, ctx);
+    }
+}
@@ -0,0 +1,67 @@
+package byx.matcher.benchmark;
+
+import byx.matcher.Matcher;
+import byx.matcher.MatcherParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同一个正则表达式在组合子解释执行、DFA和生成的字节码三种后端上的性能
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BackendBenchmark {
+    private static final String EXPR = "[_a-zA-Z][_0-9a-zA-Z]*(,[_a-zA-Z][_0-9a-zA-Z]*)*";
+    private static final String EMAIL = "[a-z]+@[a-z]+\\.(com|org)";
+
+    @Param({"interpreter", "dfa", "bytecode"})
+    private String backend;
+
+    private Matcher list;
+    private Matcher email;
+    private String input;
+
+    @Setup
+    public void setup() {
+        Matcher m1 = MatcherParser.parse(EXPR);
+        Matcher m2 = MatcherParser.parse(EMAIL);
+        switch (backend) {
+            case "dfa" -> {
+                m1 = m1.compile();
+                m2 = m2.compile();
+            }
+            case "bytecode" -> {
+                m1 = m1.compileBytecode();
+                m2 = m2.compileBytecode();
+            }
+            default -> {
+            }
+        }
+        list = m1;
+        email = m2;
+
+        StringBuilder sb = new StringBuilder("id0");
+        for (int i = 1; sb.length() < 100000; i++) {
+            sb.append(",id").append(i);
+        }
+        input = sb.toString();
+        if (!list.match(input)) {
+            throw new IllegalStateException("invalid benchmark input");
+        }
+    }
+
+    @Benchmark
+    public boolean match() {
+        return list.match(input);
+    }
+
+    @Benchmark
+    public boolean matchShort() {
+        return email.match("alice@example.com");
+    }
+}
@@ -0,0 +1,22 @@
+package byx.matcher.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 运行基准测试，同时报告吞吐量和gc分配速率
+ * 参数与JMH命令行相同，例如只运行ValidationBenchmark：java -jar target/benchmarks.jar Validation
+ */
+public class BenchmarkRunner {
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+            .parent(new CommandLineOptions(args))
+            .addProfiler(GCProfiler.class)
+            .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,84 @@
+package byx.matcher.benchmark;
+
+import byx.matcher.Matcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static byx.matcher.Matcher.*;
+
+/**
+ * 基本组合子的匹配性能
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CombinatorBenchmark {
+    private final Matcher single = ch('a');
+    private final Matcher digit = range('0', '9');
+    private final Matcher charSet = chs('a', 'b', 'c', 'd', 'e');
+    private final Matcher andOr = ch('a').and(str("mn").or("xy")).and(range('0', '9').many1());
+    private final Matcher many = ch('a').many();
+    private final Matcher repeat = ch('a').repeat(0, Integer.MAX_VALUE - 1);
+    private final Matcher nestedMany = ch('a').many().many();
+    private final Matcher fixedRepeat = ch('a').repeat(1000);
+    private final Matcher nullableRepeat = ch('a').repeat(0, 1).repeat(1000);
+
+    @Param({"1000", "100000"})
+    private int length;
+
+    private String run;
+
+    @Setup
+    public void setup() {
+        run = "a".repeat(length);
+    }
+
+    @Benchmark
+    public boolean singleChar() {
+        return single.match("a");
+    }
+
+    @Benchmark
+    public boolean rangeChar() {
+        return digit.match("5");
+    }
+
+    @Benchmark
+    public boolean charSetChar() {
+        return charSet.match("d");
+    }
+
+    @Benchmark
+    public boolean andOr() {
+        return andOr.match("axy0123456789");
+    }
+
+    @Benchmark
+    public boolean longMany() {
+        return many.match(run);
+    }
+
+    @Benchmark
+    public boolean longRepeat() {
+        return repeat.match(run);
+    }
+
+    @Benchmark
+    public boolean longNestedMany() {
+        return nestedMany.match(run);
+    }
+
+    @Benchmark
+    public boolean longFixedRepeat() {
+        return fixedRepeat.match(run);
+    }
+
+    @Benchmark
+    public boolean longNullableRepeat() {
+        return nullableRepeat.match(run);
+    }
+}
@@ -0,0 +1,82 @@
+package byx.matcher.benchmark;
+
+import byx.matcher.Matcher;
+
+import static byx.matcher.Matcher.*;
+
+/**
+ * 基准测试使用的递归语法，与README中的示例相同
+ */
+public class Grammars {
+    /**
+     * 括号匹配
+     * expr = term+
+     * term = "()"
+     *      | '(' expr ')'
+     */
+    public static class Bracket {
+        private static final Matcher term = oneOf(
+            str("()"),
+            ch('(').and(lazy(() -> Bracket.expr)).and(')')
+        );
+        public static final Matcher expr = term.many1();
+    }
+
+    /**
+     * 算数表达式
+     * expr = term ('+'|'-' term)+
+     * term = fact ('*'|'/' fact)+
+     * fact = [0-9]+
+     *      | '-' fact
+     *      | '(' expr ')'
+     */
+    public static class Arithmetic {
+        private static final Matcher fact = oneOf(
+            range('0', '9').many1(),
+            ch('-').and(lazy(() -> Arithmetic.fact)),
+            ch('(').and(lazy(() -> Arithmetic.expr)).and(')')
+        );
+        private static final Matcher term = fact.and(chs('*', '/').and(fact).many());
+        public static final Matcher expr = term.and(chs('+', '-').and(term).many());
+    }
+
+    /**
+     * json
+     */
+    public static class Json {
+        private static final Matcher blank = chs(' ', '\t', '\n', '\r').many();
+        private static final Matcher objStart = withBlank(ch('{'));
+        private static final Matcher objEnd = withBlank(ch('}'));
+        private static final Matcher arrStart = withBlank(ch('['));
+        private static final Matcher arrEnd = withBlank(ch(']'));
+        private static final Matcher colon = withBlank(ch(':'));
+        private static final Matcher comma = withBlank(ch(','));
+
+        public static final Matcher jsonObj = oneOf(
+            lazy(() -> Json.number),
+            lazy(() -> Json.string),
+            lazy(() -> Json.bool),
+            lazy(() -> Json.arr),
+            lazy(() -> Json.obj)
+        );
+        private static final Matcher digits = range('0', '9').many1();
+        private static final Matcher integer = digits;
+        private static final Matcher decimal = seq(digits, ch('.'), digits);
+        private static final Matcher number = integer.or(decimal);
+        private static final Matcher string = seq(ch('"'), not('"').many(), ch('"'));
+        private static final Matcher bool = strs("true", "false");
+        private static final Matcher arr = oneOf(
+            arrStart.and(arrEnd),
+            seq(arrStart, jsonObj.and(comma.and(jsonObj).many()), arrEnd)
+        );
+        private static final Matcher field = seq(string, colon, jsonObj);
+        private static final Matcher obj = oneOf(
+            objStart.and(objEnd),
+            seq(objStart, field.and(comma.and(field).many()), objEnd)
+        );
+
+        private static Matcher withBlank(Matcher m) {
+            return seq(blank, m, blank);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package byx.matcher.benchmark;
+
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * 生成指定长度左右的合法输入，使用固定种子保证每次运行的输入相同
+ */
+public class InputGenerator {
+    /**
+     * 嵌套深度为depth的括号串
+     */
+    public static String nestedBrackets(int depth) {
+        return "(".repeat(depth) + ")".repeat(depth);
+    }
+
+    /**
+     * count个互不相同的随机小写单词
+     */
+    public static String[] words(int count) {
+        Random random = new Random(42);
+        Set<String> set = new LinkedHashSet<>();
+        while (set.size() < count) {
+            StringBuilder sb = new StringBuilder();
+            int len = 3 + random.nextInt(10);
+            for (int i = 0; i < len; i++) {
+                sb.append((char) ('a' + random.nextInt(26)));
+            }
+            set.add(sb.toString());
+        }
+        return set.toArray(new String[0]);
+    }
+
+    /**
+     * 长度约为size的文本，由空格分隔的随机单词组成，其中约十分之一来自words
+     */
+    public static String text(String[] words, int size) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(size + 16);
+        while (sb.length() < size) {
+            if (random.nextInt(10) == 0) {
+                sb.append(words[random.nextInt(words.length)]);
+            } else {
+                int len = 3 + random.nextInt(10);
+                for (int i = 0; i < len; i++) {
+                    sb.append((char) ('A' + random.nextInt(26)));
+                }
+            }
+            sb.append(' ');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 长度约为size的算数表达式
+     */
+    public static String arithmetic(int size) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(size + 64);
+        appendTerm(sb, random, 0);
+        while (sb.length() < size) {
+            sb.append(random.nextBoolean() ? '+' : '-');
+            appendTerm(sb, random, 0);
+        }
+        return sb.toString();
+    }
+
+    private static void appendTerm(StringBuilder sb, Random random, int depth) {
+        appendFact(sb, random, depth);
+        for (int i = random.nextInt(3); i > 0; i--) {
+            sb.append(random.nextBoolean() ? '*' : '/');
+            appendFact(sb, random, depth);
+        }
+    }
+
+    private static void appendFact(StringBuilder sb, Random random, int depth) {
+        int r = random.nextInt(10);
+        if (r == 0) {
+            sb.append('-');
+            appendFact(sb, random, depth);
+        } else if (r == 1 && depth < 8) {
+            sb.append('(');
+            appendTerm(sb, random, depth + 1);
+            for (int i = random.nextInt(3); i > 0; i--) {
+                sb.append(random.nextBoolean() ? '+' : '-');
+                appendTerm(sb, random, depth + 1);
+            }
+            sb.append(')');
+        } else {
+            sb.append(random.nextInt(100000));
+        }
+    }
+
+    /**
+     * 长度约为size的json数组
+     */
+    public static String json(int size) {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder(size + 256);
+        sb.append("[\n");
+        appendObject(sb, random, 1);
+        while (sb.length() < size) {
+            sb.append(",\n");
+            appendObject(sb, random, 1);
+        }
+        sb.append("\n]");
+        return sb.toString();
+    }
+
+    private static void appendValue(StringBuilder sb, Random random, int depth) {
+        switch (random.nextInt(depth < 4 ? 7 : 5)) {
+            case 0 -> sb.append(random.nextInt(1000000));
+            case 1 -> sb.append(random.nextInt(1000)).append('.').append(random.nextInt(1000));
+            case 2 -> sb.append("\"value").append(random.nextInt(1000)).append('"');
+            case 3 -> sb.append(random.nextBoolean());
+            case 4 -> sb.append("[]");
+            case 5 -> {
+                sb.append('[');
+                for (int i = random.nextInt(4); i >= 0; i--) {
+                    appendValue(sb, random, depth + 1);
+                    sb.append(i > 0 ? ", " : "");
+                }
+                sb.append(']');
+            }
+            default -> appendObject(sb, random, depth + 1);
+        }
+    }
+
+    private static void appendObject(StringBuilder sb, Random random, int depth) {
+        sb.append("{");
+        for (int i = random.nextInt(5); i >= 0; i--) {
+            sb.append("\"key").append(random.nextInt(100)).append("\": ");
+            appendValue(sb, random, depth);
+            sb.append(i > 0 ? ", " : "");
+        }
+        sb.append("}");
+    }
+}
@@ -0,0 +1,96 @@
+package byx.matcher.benchmark;
+
+import byx.matcher.MatchResult;
+import byx.matcher.Matcher;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static byx.matcher.Matcher.*;
+
+/**
+ * 大规模字符串集合的构建时间、匹配吞吐量和非锚定查找吞吐量
+ * strs使用双数组字典树，orChain是逐个str用or连接（两两合并成平衡树以免递归过深）
+ * 构建时的内存占用通过-prof gc的gc.alloc.rate.norm观察
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeywordBenchmark {
+    @Param({"1000", "50000"})
+    private int count;
+
+    private String[] words;
+    private Matcher trie;
+    private Matcher orChain;
+    private String[] probes;
+    private String text;
+
+    @Setup
+    public void setup() {
+        words = InputGenerator.words(count);
+        trie = buildTrie();
+        orChain = buildOrChain();
+        probes = new String[1024];
+        for (int i = 0; i < probes.length; i++) {
+            probes[i] = i % 2 == 0 ? words[(i * 7919) % words.length] : words[(i * 7919) % words.length] + "x";
+        }
+        text = InputGenerator.text(words, 100000);
+    }
+
+    private Matcher buildTrie() {
+        return strs(words[0], words[1], Arrays.copyOfRange(words, 2, words.length));
+    }
+
+    private Matcher buildOrChain() {
+        List<Matcher> level = Arrays.stream(words).map(Matcher::str).toList();
+        while (level.size() > 1) {
+            Matcher[] next = new Matcher[(level.size() + 1) / 2];
+            for (int i = 0; i < next.length; i++) {
+                next[i] = 2 * i + 1 < level.size() ? level.get(2 * i).or(level.get(2 * i + 1)) : level.get(2 * i);
+            }
+            level = Arrays.asList(next);
+        }
+        return level.get(0);
+    }
+
+    @Benchmark
+    public Matcher buildTrieTime() {
+        return buildTrie();
+    }
+
+    @Benchmark
+    public Matcher buildOrChainTime() {
+        return buildOrChain();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int matchTrie() {
+        int n = 0;
+        for (String p : probes) {
+            n += trie.match(p) ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(1024)
+    public int matchOrChain() {
+        int n = 0;
+        for (String p : probes) {
+            n += orChain.match(p) ? 1 : 0;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public List<MatchResult> findAllTrie() {
+        return trie.findAll(text);
+    }
+}
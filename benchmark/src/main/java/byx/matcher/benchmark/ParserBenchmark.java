@@ -0,0 +1,53 @@
+package byx.matcher.benchmark;
+
+import byx.matcher.Matcher;
+import byx.matcher.MatcherParser;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MatcherParser将正则表达式解析、编译成Matcher的耗时
+ * parse和compile在每次调用前清空缓存，测量的是实际的解析和编译；cachedParse测量缓存命中的耗时
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParserBenchmark {
+    @Param({
+        "(a|b)*c",
+        "[_a-zA-Z][_0-9a-zA-Z]*",
+        "[0369]*(([147][0369]*|[258][0369]*[258][0369]*)([147][0369]*[258][0369]*)*([258][0369]*|[147][0369]*[147][0369]*)|[258][0369]*[147][0369]*)*"
+    })
+    private String expr;
+
+    /**
+     * 每次调用前清空MatcherParser的缓存
+     */
+    @State(Scope.Thread)
+    public static class Uncached {
+        @Setup(Level.Invocation)
+        public void invalidate() {
+            MatcherParser.parseCache().invalidateAll();
+            MatcherParser.compileCache().invalidateAll();
+        }
+    }
+
+    @Benchmark
+    public Matcher parse(Uncached uncached) {
+        return MatcherParser.parse(expr);
+    }
+
+    @Benchmark
+    public Matcher compile(Uncached uncached) {
+        return MatcherParser.compile(expr);
+    }
+
+    @Benchmark
+    public Matcher cachedParse() {
+        return MatcherParser.parse(expr);
+    }
+}
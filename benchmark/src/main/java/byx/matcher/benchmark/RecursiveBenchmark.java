@@ -0,0 +1,31 @@
+package byx.matcher.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lazy定义的递归语法的匹配性能
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RecursiveBenchmark {
+    @Param({"10", "100", "10000"})
+    private int depth;
+
+    private String brackets;
+
+    @Setup
+    public void setup() {
+        brackets = InputGenerator.nestedBrackets(depth);
+    }
+
+    @Benchmark
+    public boolean nestedBrackets() {
+        return Grammars.Bracket.expr.match(brackets);
+    }
+}
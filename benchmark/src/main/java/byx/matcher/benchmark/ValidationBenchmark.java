@@ -0,0 +1,41 @@
+package byx.matcher.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 算数表达式和json校验在不同输入规模下的性能
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+    @Param({"1024", "102400", "10485760"})
+    private int size;
+
+    private String arithmetic;
+    private String json;
+
+    @Setup
+    public void setup() {
+        arithmetic = InputGenerator.arithmetic(size);
+        json = InputGenerator.json(size);
+        if (!Grammars.Arithmetic.expr.match(arithmetic) || !Grammars.Json.jsonObj.match(json)) {
+            throw new IllegalStateException("invalid benchmark input");
+        }
+    }
+
+    @Benchmark
+    public boolean arithmetic() {
+        return Grammars.Arithmetic.expr.match(arithmetic);
+    }
+
+    @Benchmark
+    public boolean json() {
+        return Grammars.Json.jsonObj.match(json);
+    }
+}
@@ -0,0 +1,28 @@
+package byx.matcher;
+
+import java.util.Set;
+import java.util.function.BiFunction;
+
+/**
+ * 将返回Set<Integer>的解析函数适配成Matcher，用于迁移旧版本中实现parse(String, int)的自定义Matcher
+ */
+final class AdapterMatcher implements Matcher {
+    final BiFunction<CharSequence, Integer, Set<Integer>> parser;
+
+    AdapterMatcher(BiFunction<CharSequence, Integer, Set<Integer>> parser) {
+        this.parser = parser;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        for (int pos : parser.apply(s, index)) {
+            ctx.reach(pos);
+            result.add(pos);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "custom";
+    }
+}
@@ -0,0 +1,113 @@
+package byx.matcher;
+
+import java.util.Arrays;
+
+/**
+ * 建立在双数组字典树上的AC自动机，用于在文本中查找字符串集合的非锚定匹配
+ */
+final class AhoCorasick {
+    private final DoubleArrayTrie trie;
+
+    /**
+     * 失配指针，指向当前状态的最长真后缀所对应的状态
+     */
+    private final int[] fail;
+
+    /**
+     * 当前状态的所有后缀中最长的单词长度，-1表示没有
+     */
+    private final int[] longestOutput;
+
+    AhoCorasick(DoubleArrayTrie trie) {
+        this.trie = trie;
+        int n = trie.size;
+        fail = new int[n];
+        longestOutput = new int[n];
+        Arrays.fill(longestOutput, -1);
+
+        // 按层次遍历计算失配指针，父状态的失配指针总是先于子状态确定
+        int[] queue = new int[n];
+        int head = 0, tail = 0;
+        queue[tail++] = DoubleArrayTrie.ROOT;
+        longestOutput[DoubleArrayTrie.ROOT] = trie.isTerminal(DoubleArrayTrie.ROOT) ? 0 : -1;
+        int codes = trie.alphabet.length;
+        while (head < tail) {
+            int s = queue[head++];
+            for (int code = 1; code < codes; code++) {
+                int t = trie.nextByCode(s, code);
+                if (t < 0) {
+                    continue;
+                }
+                if (s == DoubleArrayTrie.ROOT) {
+                    fail[t] = DoubleArrayTrie.ROOT;
+                } else {
+                    int f = fail[s];
+                    while (f != DoubleArrayTrie.ROOT && trie.nextByCode(f, code) < 0) {
+                        f = fail[f];
+                    }
+                    int g = trie.nextByCode(f, code);
+                    fail[t] = g < 0 ? DoubleArrayTrie.ROOT : g;
+                }
+                longestOutput[t] = trie.isTerminal(t) ? trie.depth[t] : longestOutput[fail[t]];
+                queue[tail++] = t;
+            }
+        }
+    }
+
+    private int step(int s, char c) {
+        int code = trie.code(c);
+        if (code == 0) {
+            return DoubleArrayTrie.ROOT;
+        }
+        while (true) {
+            int t = trie.nextByCode(s, code);
+            if (t >= 0) {
+                return t;
+            }
+            if (s == DoubleArrayTrie.ROOT) {
+                return s;
+            }
+            s = fail[s];
+        }
+    }
+
+    /**
+     * 从from开始查找起始位置最靠左的匹配，同一起始位置取最长的匹配
+     * @return 匹配结果，找不到时返回null
+     */
+    MatchResult find(CharSequence s, int from) {
+        if (longestOutput[DoubleArrayTrie.ROOT] == 0 && from <= s.length()) {
+            // 空串在from处匹配，再取from处最长的匹配
+            int state = DoubleArrayTrie.ROOT, end = from;
+            for (int i = from; i < s.length(); i++) {
+                state = trie.next(state, s.charAt(i));
+                if (state < 0) {
+                    break;
+                }
+                if (trie.isTerminal(state)) {
+                    end = i + 1;
+                }
+            }
+            return new MatchResult(s, from, end);
+        }
+
+        int bestStart = -1, bestEnd = -1;
+        int state = DoubleArrayTrie.ROOT;
+        for (int i = from; i < s.length(); i++) {
+            state = step(state, s.charAt(i));
+            int len = longestOutput[state];
+            if (len > 0) {
+                int start = i + 1 - len;
+                if (bestStart < 0 || start <= bestStart) {
+                    bestStart = start;
+                    bestEnd = i + 1;
+                }
+            }
+            // 之后的匹配起始位置不会小于i + 1 - depth
+            if (bestStart >= 0 && i + 1 - trie.depth[state] > bestStart) {
+                break;
+            }
+        }
+        return bestStart < 0 ? null : new MatchResult(s, bestStart, bestEnd);
+    }
+}
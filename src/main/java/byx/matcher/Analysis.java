@@ -0,0 +1,351 @@
+package byx.matcher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 组合子树的静态分析，在匹配之前估计最坏情况下的时间复杂度并找出可能导致多余计算的结构
+ * 复杂度按普通模式的解释执行估计：and在lhs的每个结果上解析rhs，many在每个可达位置上解析一次循环体，
+ * 每一层可以产生O(n)个位置的嵌套都会使次数多乘一个n；递归的lazy在普通模式下可能指数级增长，记忆化模式下为多项式；
+ * flatMap生成的Matcher在解析时才确定，复杂度未知。compile()之后的DFA总是线性的
+ */
+public final class Analysis {
+    /**
+     * 复杂度类别，按从好到坏的顺序排列
+     */
+    public enum Complexity {
+        LINEAR,
+        POLYNOMIAL,
+        EXPONENTIAL,
+        UNKNOWN
+    }
+
+    /**
+     * 问题类型
+     */
+    public enum Kind {
+        /**
+         * 可以匹配空串的循环体被重复多次，例如ch('a').many().many()
+         */
+        NULLABLE_REPEAT,
+        /**
+         * 无上限的repeat直接嵌套，例如(a+)+
+         */
+        NESTED_REPEAT,
+        /**
+         * or的多个分支可以从同一个字符开始匹配，或者都可以匹配空串
+         */
+        AMBIGUOUS_OR
+    }
+
+    /**
+     * 分析发现的一个问题
+     */
+    public static final class Issue {
+        private final Kind kind;
+        private final Matcher node;
+        private final String message;
+
+        private Issue(Kind kind, Matcher node, String message) {
+            this.kind = kind;
+            this.node = node;
+            this.message = message;
+        }
+
+        public Kind kind() {
+            return kind;
+        }
+
+        /**
+         * 出现问题的节点
+         */
+        public Matcher node() {
+            return node;
+        }
+
+        public String message() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return kind + ": " + message;
+        }
+    }
+
+    private static final int INF = Integer.MAX_VALUE;
+    private static final int MAX_NODE_TEXT = 60;
+
+    private final List<Issue> issues = new ArrayList<>();
+    private int nestingDepth;
+    private int repeatDepth;
+    private int degree;
+    private boolean recursive;
+    private boolean unknown;
+    private boolean regular;
+
+    // 分析过程中的中间结果
+    private Lookahead lookahead;
+    private final Map<Matcher, int[]> costs = new IdentityHashMap<>();
+    private final Set<Matcher> active = Collections.newSetFromMap(new IdentityHashMap<>());
+    private Set<Matcher> done;
+
+    private Analysis() {
+    }
+
+    /**
+     * 分析m
+     * @param m Matcher
+     * @return 分析结果
+     */
+    public static Analysis of(Matcher m) {
+        Analysis a = new Analysis();
+        a.run(m);
+        return a;
+    }
+
+    /**
+     * 最坏情况下的复杂度类别
+     */
+    public Complexity complexity() {
+        if (unknown) {
+            return Complexity.UNKNOWN;
+        }
+        if (recursive) {
+            return Complexity.EXPONENTIAL;
+        }
+        return degree <= 1 ? Complexity.LINEAR : Complexity.POLYNOMIAL;
+    }
+
+    /**
+     * 复杂度为多项式时的次数，即匹配长度为n的输入最多需要O(n^degree)步
+     */
+    public int degree() {
+        return Math.max(degree, 1);
+    }
+
+    /**
+     * 组合子树的最大嵌套层数，递归的lazy只展开一次
+     */
+    public int nestingDepth() {
+        return nestingDepth;
+    }
+
+    /**
+     * 可以重复多次的repeat和many的最大嵌套层数
+     */
+    public int repeatDepth() {
+        return repeatDepth;
+    }
+
+    /**
+     * 是否属于正则子集，为true时compile()可以将其编译成线性时间的DFA
+     */
+    public boolean isRegular() {
+        return regular;
+    }
+
+    /**
+     * 发现的问题
+     */
+    public List<Issue> issues() {
+        return Collections.unmodifiableList(issues);
+    }
+
+    /**
+     * 复杂度超过max时抛出IllegalArgumentException，可用于在上线之前拒绝有风险的表达式
+     * @param max 允许的最坏复杂度
+     * @return 当前分析结果
+     */
+    public Analysis check(Complexity max) {
+        if (complexity().compareTo(max) > 0) {
+            throw new IllegalArgumentException("complexity " + describeComplexity() + " exceeds " + max + ": " + this);
+        }
+        return this;
+    }
+
+    private String describeComplexity() {
+        return complexity() == Complexity.POLYNOMIAL ? "O(n^" + degree() + ")" : complexity().toString();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("complexity=").append(describeComplexity())
+            .append(", nestingDepth=").append(nestingDepth)
+            .append(", repeatDepth=").append(repeatDepth)
+            .append(", regular=").append(regular);
+        for (Issue issue : issues) {
+            sb.append("\n  ").append(issue);
+        }
+        return sb.toString();
+    }
+
+    private void run(Matcher m) {
+        regular = m instanceof DfaMatcher || m instanceof StoredDfaMatcher || Nfa.compile(m) != null;
+
+        lookahead = Lookahead.of(m);
+        int[] cost = cost(m);
+        degree = m instanceof DfaMatcher || m instanceof StoredDfaMatcher ? 1 : cost[0];
+        done = Collections.newSetFromMap(new IdentityHashMap<>());
+        nestingDepth = inspect(m, 1, 0, false);
+    }
+
+    /**
+     * 估计m在一个位置上解析的代价
+     * @return {d, w}：解析需要O(n^d)步，w为1时结果集合可能有O(n)个位置，为0时只有常数个
+     */
+    private int[] cost(Matcher m) {
+        int[] cached = costs.get(m);
+        if (cached != null) {
+            return cached;
+        }
+        if (!active.add(m)) {
+            // 回到了正在计算的lazy，说明存在递归
+            recursive = true;
+            return new int[]{0, 1};
+        }
+        int[] result;
+        if (m instanceof AndMatcher and) {
+            int[] l = cost(and.lhs), r = cost(and.rhs);
+            if (l[1] == 0) {
+                result = new int[]{Math.max(l[0], r[0]), r[1]};
+            } else if (overlaps(and.lhs, and.rhs)) {
+                // rhs在lhs的O(n)个结果上都可能继续匹配，例如a*a*
+                result = new int[]{Math.max(l[0], 1 + r[0]), 1};
+            } else {
+                // lhs的结果中除了最后一个，其后的字符都被lhs消耗过，rhs在这些位置上立即失败，例如[a-z]+@
+                result = new int[]{Math.max(Math.max(l[0], r[0]), 1), lookahead.nullable(and.rhs) ? 1 : r[1]};
+            }
+        } else if (m instanceof OrMatcher or) {
+            int[] l = cost(or.lhs), r = cost(or.rhs);
+            result = new int[]{Math.max(l[0], r[0]), Math.max(l[1], r[1])};
+        } else if (m instanceof RepeatMatcher r) {
+            int[] body = cost(r.matcher);
+            if (r.maxTimes <= 1) {
+                result = body;
+            } else if (body[1] == 0 || !overlaps(r.matcher, r.matcher)) {
+                // 每一轮只从常数个位置出发，或者各轮扫描的字符互不重叠
+                result = new int[]{Math.max(body[0], 1), 1};
+            } else if (r.maxTimes == INF) {
+                // 在每个可达位置上解析一次循环体
+                result = new int[]{1 + body[0], 1};
+            } else {
+                // 重复次数为常数，后一轮从前一轮的O(n)个结果出发
+                result = new int[]{body[0] + 1, 1};
+            }
+        } else if (m instanceof FlatMapMatcher f) {
+            unknown = true;
+            result = cost(f.matcher);
+        } else if (m instanceof DfaMatcher || m instanceof StoredDfaMatcher) {
+            result = new int[]{1, 1};
+        } else if (m instanceof LazyMatcher || m instanceof MemoMatcher || m instanceof CaptureMatcher
+            || m instanceof ProfileMatcher || m instanceof DispatchMatcher) {
+            result = cost(lookahead.children(m).get(0));
+        } else {
+            result = new int[]{0, 0};
+        }
+        active.remove(m);
+        costs.put(m, result);
+        return result;
+    }
+
+    /**
+     * rhs能否从lhs消耗过的字符开始匹配
+     */
+    private boolean overlaps(Matcher lhs, Matcher rhs) {
+        return !lookahead.chars(lhs).intersect(lookahead.first(rhs)).isEmpty();
+    }
+
+    /**
+     * 收集问题并计算嵌套层数
+     * @param level m所在的层数
+     * @param repeats m外层可重复多次的repeat个数
+     * @param inOr m是否为or链中间的节点
+     * @return m的子树中的最大层数
+     */
+    private int inspect(Matcher m, int level, int repeats, boolean inOr) {
+        if (!done.add(m)) {
+            return level;
+        }
+        if (m instanceof RepeatMatcher r && r.maxTimes > 1) {
+            repeats++;
+            repeatDepth = Math.max(repeatDepth, repeats);
+            Matcher body = unwrap(r.matcher);
+            if (lookahead.nullable(r.matcher)) {
+                issues.add(new Issue(Kind.NULLABLE_REPEAT, m,
+                    "repeated body can match the empty string: " + text(m)));
+            } else if (body instanceof RepeatMatcher inner && inner.maxTimes == INF) {
+                issues.add(new Issue(Kind.NESTED_REPEAT, m, "unbounded repeat nested in repeat: " + text(m)));
+            }
+        } else if (m instanceof OrMatcher && !inOr) {
+            ambiguity(m);
+        }
+
+        int max = level;
+        for (Matcher c : lookahead.children(m)) {
+            max = Math.max(max, inspect(c, level + 1, repeats, m instanceof OrMatcher));
+        }
+        return max;
+    }
+
+    /**
+     * 去掉不影响匹配的包装
+     */
+    private Matcher unwrap(Matcher m) {
+        Set<Matcher> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        while (seen.add(m)) {
+            if (m instanceof MemoMatcher memo) {
+                m = memo.matcher;
+            } else if (m instanceof CaptureMatcher c) {
+                m = c.matcher;
+            } else if (m instanceof ProfileMatcher p) {
+                m = p.matcher;
+            } else if (m instanceof LazyMatcher) {
+                m = lookahead.target(m);
+            } else {
+                break;
+            }
+        }
+        return m;
+    }
+
+    /**
+     * 检查or链的各个分支两两之间是否有重叠
+     */
+    private void ambiguity(Matcher m) {
+        List<Matcher> alternatives = new ArrayList<>();
+        flattenOr(m, alternatives);
+        for (int i = 0; i < alternatives.size(); i++) {
+            for (int j = i + 1; j < alternatives.size(); j++) {
+                Matcher a = alternatives.get(i), b = alternatives.get(j);
+                CharClass overlap = lookahead.first(a).intersect(lookahead.first(b));
+                if (!overlap.isEmpty()) {
+                    issues.add(new Issue(Kind.AMBIGUOUS_OR, m, "alternatives " + text(a) + " and " + text(b)
+                        + " can both start with " + overlap));
+                } else if (lookahead.nullable(a) && lookahead.nullable(b)) {
+                    issues.add(new Issue(Kind.AMBIGUOUS_OR, m, "alternatives " + text(a) + " and " + text(b)
+                        + " can both match the empty string"));
+                }
+            }
+        }
+    }
+
+    private static void flattenOr(Matcher m, List<Matcher> alternatives) {
+        if (m instanceof OrMatcher or) {
+            flattenOr(or.lhs, alternatives);
+            flattenOr(or.rhs, alternatives);
+        } else {
+            alternatives.add(m);
+        }
+    }
+
+    private static String text(Matcher m) {
+        String s = m.toString();
+        return s.length() <= MAX_NODE_TEXT ? s : s.substring(0, MAX_NODE_TEXT - 3) + "...";
+    }
+}
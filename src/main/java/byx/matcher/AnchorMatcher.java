@@ -0,0 +1,27 @@
+package byx.matcher;
+
+/**
+ * 匹配输入的开头或结尾，不消耗字符
+ */
+final class AnchorMatcher implements Matcher {
+    /**
+     * true表示输入开头，false表示输入结尾
+     */
+    final boolean begin;
+
+    AnchorMatcher(boolean begin) {
+        this.begin = begin;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (begin ? index == 0 : index == s.length()) {
+            result.add(index);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return begin ? "^" : "$";
+    }
+}
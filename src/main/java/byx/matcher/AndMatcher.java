@@ -0,0 +1,37 @@
+package byx.matcher;
+
+/**
+ * 连接两个Matcher
+ */
+final class AndMatcher implements Matcher {
+    final Matcher lhs;
+    final Matcher rhs;
+
+    AndMatcher(Matcher lhs, Matcher rhs) {
+        this.lhs = lhs;
+        this.rhs = rhs;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (ctx.stackDepth >= MatchContext.MAX_STACK_DEPTH) {
+            StackEngine.parse(this, s, index, result, ctx);
+            return;
+        }
+        ctx.stackDepth++;
+        PositionSet set = ctx.borrow();
+        lhs.parse(s, index, set, ctx);
+        ctx.checkPositions(set.size());
+        for (int i = 0; i < set.size() && !result.reached; i++) {
+            ctx.step();
+            rhs.parse(s, set.get(i), result, ctx);
+        }
+        ctx.release(set);
+        ctx.stackDepth--;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + lhs + " " + rhs + ")";
+    }
+}
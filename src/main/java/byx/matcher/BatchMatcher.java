@@ -0,0 +1,159 @@
+package byx.matcher;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 批量匹配，使用同一个Matcher并行校验大量字符串
+ * 每个工作线程复用自己的MatchContext；Matcher本身不可变，但lazy的supplier和flatMap的mapper需要是线程安全的
+ */
+public final class BatchMatcher {
+    /**
+     * 每个任务至少处理的字符串个数，是64的倍数以便BitSet按字对齐写入
+     */
+    private static final int CHUNK = 256;
+
+    /**
+     * 默认模式的MatchContext可以在所有BatchMatcher之间共享
+     */
+    private static final ThreadLocal<MatchContext> DEFAULT_CONTEXTS = ThreadLocal.withInitial(MatchContext::new);
+
+    private final Matcher matcher;
+    private final Executor executor;
+    private final ThreadLocal<MatchContext> contexts;
+
+    /**
+     * 使用ForkJoinPool.commonPool()执行
+     * @param matcher matcher
+     */
+    public BatchMatcher(Matcher matcher) {
+        this(matcher, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * 使用指定的线程池执行，executor为ForkJoinPool时以分治方式拆分任务，否则按固定大小分块提交
+     * @param matcher matcher
+     * @param executor 线程池
+     */
+    public BatchMatcher(Matcher matcher, Executor executor) {
+        this.matcher = matcher;
+        this.executor = executor;
+        this.contexts = DEFAULT_CONTEXTS;
+    }
+
+    /**
+     * 使用指定的线程池执行，并由contextFactory为每个线程创建MatchContext，例如MatchContext::memoized
+     * 每个任务结束时清空记忆化表，线程空闲时不会继续持有最后一个输入及其记忆化结果
+     * @param matcher matcher
+     * @param executor 线程池
+     * @param contextFactory 创建MatchContext的工厂函数
+     */
+    public BatchMatcher(Matcher matcher, Executor executor, Supplier<MatchContext> contextFactory) {
+        this.matcher = matcher;
+        this.executor = executor;
+        this.contexts = ThreadLocal.withInitial(contextFactory);
+    }
+
+    /**
+     * 批量匹配
+     * @param inputs 输入
+     * @return 第i个元素表示第i个输入是否匹配
+     */
+    public boolean[] matchAll(List<? extends CharSequence> inputs) {
+        boolean[] result = new boolean[inputs.size()];
+        run(inputs, (from, to) -> {
+            MatchContext ctx = contexts.get();
+            try {
+                for (int i = from; i < to; i++) {
+                    result[i] = matcher.match(inputs.get(i), ctx);
+                }
+            } finally {
+                ctx.clearMemo();
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 批量匹配
+     * @param inputs 输入
+     * @return 第i个元素表示第i个输入是否匹配
+     */
+    public boolean[] matchAll(Stream<? extends CharSequence> inputs) {
+        return matchAll(inputs.collect(Collectors.toList()));
+    }
+
+    /**
+     * 批量匹配
+     * @param inputs 输入
+     * @return 第i位表示第i个输入是否匹配
+     */
+    public BitSet matchAllBits(List<? extends CharSequence> inputs) {
+        // 每个任务负责的区间按64对齐，各自写入不同的字
+        long[] words = new long[(inputs.size() + 63) / 64];
+        run(inputs, (from, to) -> {
+            MatchContext ctx = contexts.get();
+            try {
+                for (int i = from; i < to; i++) {
+                    if (matcher.match(inputs.get(i), ctx)) {
+                        words[i >>> 6] |= 1L << i;
+                    }
+                }
+            } finally {
+                ctx.clearMemo();
+            }
+        });
+        return BitSet.valueOf(words);
+    }
+
+    private interface RangeTask {
+        void run(int from, int to);
+    }
+
+    private void run(List<? extends CharSequence> inputs, RangeTask task) {
+        int n = inputs.size();
+        if (n <= CHUNK) {
+            task.run(0, n);
+        } else if (executor instanceof ForkJoinPool pool) {
+            pool.invoke(new SplitAction(task, 0, n));
+        } else {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[(n + CHUNK - 1) / CHUNK];
+            for (int i = 0; i < futures.length; i++) {
+                int from = i * CHUNK, to = Math.min(n, from + CHUNK);
+                futures[i] = CompletableFuture.runAsync(() -> task.run(from, to), executor);
+            }
+            CompletableFuture.allOf(futures).join();
+        }
+    }
+
+    private static class SplitAction extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final RangeTask task;
+        private final int from;
+        private final int to;
+
+        SplitAction(RangeTask task, int from, int to) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= CHUNK) {
+                task.run(from, to);
+                return;
+            }
+            int mid = from + Math.max(CHUNK, (to - from) / 2 / CHUNK * CHUNK);
+            invokeAll(new SplitAction(task, from, mid), new SplitAction(task, mid, to));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package byx.matcher;
+
+/**
+ * 匹配使用的资源超出MatchBudget的限制
+ */
+public class BudgetExceededException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 超出的限制
+     */
+    public enum Limit {
+        STEPS,
+        TIMEOUT,
+        POSITIONS
+    }
+
+    private final Limit limit;
+    private final long steps;
+
+    BudgetExceededException(Limit limit, long steps, String message) {
+        super(message);
+        this.limit = limit;
+        this.steps = steps;
+    }
+
+    /**
+     * 超出的限制
+     */
+    public Limit limit() {
+        return limit;
+    }
+
+    /**
+     * 中止时已经执行的步数
+     */
+    public long steps() {
+        return steps;
+    }
+}
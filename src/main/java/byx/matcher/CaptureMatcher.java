@@ -0,0 +1,30 @@
+package byx.matcher;
+
+/**
+ * 捕获组，解析时与matcher相同，查询MatchResult时才计算匹配到的区间
+ */
+final class CaptureMatcher implements Matcher {
+    final Matcher matcher;
+    final int group;
+
+    CaptureMatcher(Matcher matcher, int group) {
+        this.matcher = matcher;
+        this.group = group;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (ctx.stackDepth >= MatchContext.MAX_STACK_DEPTH) {
+            StackEngine.parse(this, s, index, result, ctx);
+            return;
+        }
+        ctx.stackDepth++;
+        matcher.parse(s, index, result, ctx);
+        ctx.stackDepth--;
+    }
+
+    @Override
+    public String toString() {
+        return "group" + group + "(" + matcher + ")";
+    }
+}
@@ -0,0 +1,269 @@
+package byx.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 计算捕获组的区间
+ * 在已知整体匹配区间的前提下，借助各子Matcher的解析结果自顶向下选出一条解析路径：
+ * and优先让lhs匹配得更长，or优先选择lhs，repeat的捕获组记录最后一次重复的区间
+ */
+final class Captures {
+    private final CharSequence s;
+    private final MatchContext ctx = MatchContext.memoized();
+
+    /**
+     * 第g个捕获组的区间为[spans[2g], spans[2g+1])，未参与匹配时为-1
+     */
+    private final int[] spans;
+
+    /**
+     * 正在计算的(Matcher, 起点, 终点)，用于跳过可空的左递归
+     */
+    private final Set<Key> active = new HashSet<>();
+
+    private record Key(Matcher m, int start, int end) {
+    }
+
+    private Captures(CharSequence s, int[] spans) {
+        this.s = s;
+        this.spans = spans;
+    }
+
+    /**
+     * 捕获组个数，即最大的组号
+     */
+    static int count(Matcher m) {
+        return count(m, new IdentityHashMap<>());
+    }
+
+    private static int count(Matcher m, Map<Matcher, Boolean> visited) {
+        if (visited.put(m, true) != null) {
+            return 0;
+        }
+        if (m instanceof CaptureMatcher c) {
+            return Math.max(c.group, count(c.matcher, visited));
+        } else if (m instanceof AndMatcher and) {
+            return Math.max(count(and.lhs, visited), count(and.rhs, visited));
+        } else if (m instanceof OrMatcher or) {
+            return Math.max(count(or.lhs, visited), count(or.rhs, visited));
+        } else if (m instanceof RepeatMatcher r) {
+            return count(r.matcher, visited);
+        } else if (m instanceof MemoMatcher memo) {
+            return count(memo.matcher, visited);
+        } else if (m instanceof LazyMatcher lazy) {
+            return count(lazy.supplier.get(), visited);
+        } else if (m instanceof FlatMapMatcher f) {
+            return count(f.matcher, visited);
+        } else if (m instanceof ProfileMatcher p) {
+            return count(p.matcher, visited);
+        } else if (m instanceof DfaMatcher dfa) {
+            return count(dfa.source, visited);
+        } else if (m instanceof DispatchMatcher d) {
+            return count(d.source, visited);
+        }
+        return 0;
+    }
+
+    /**
+     * 计算m完整匹配s[start, end)时各捕获组的区间
+     * @param groups 捕获组个数
+     * @return 长度为2 * (groups + 1)的数组，第0组为整体匹配区间
+     */
+    static int[] derive(Matcher m, CharSequence s, int start, int end, int groups) {
+        int[] spans = new int[2 * (groups + 1)];
+        Arrays.fill(spans, -1);
+        new Captures(s, spans).derive(m, start, end);
+        spans[0] = start;
+        spans[1] = end;
+        return spans;
+    }
+
+    private PositionSet parse(Matcher m, int index) {
+        PositionSet result = new PositionSet();
+        m.parse(s, index, result, ctx);
+        return result;
+    }
+
+    /**
+     * 选择m匹配s[i, end)的一条路径并记录路径上的捕获组
+     * @return 是否存在这样的路径
+     */
+    private boolean derive(Matcher m, int i, int end) {
+        Key key = new Key(m, i, end);
+        if (!active.add(key)) {
+            return false;
+        }
+        try {
+            return doDerive(m, i, end);
+        } finally {
+            active.remove(key);
+        }
+    }
+
+    private boolean doDerive(Matcher m, int i, int end) {
+        if (m instanceof CaptureMatcher c) {
+            if (!derive(c.matcher, i, end)) {
+                return false;
+            }
+            spans[2 * c.group] = i;
+            spans[2 * c.group + 1] = end;
+            return true;
+        } else if (m instanceof AndMatcher and) {
+            int[] mids = parse(and.lhs, i).toSortedArray();
+            for (int k = mids.length - 1; k >= 0; k--) {
+                int mid = mids[k];
+                if (mid <= end && parse(and.rhs, mid).contains(end) && both(and.lhs, i, mid, and.rhs, end)) {
+                    return true;
+                }
+            }
+            return false;
+        } else if (m instanceof OrMatcher or) {
+            return parse(or.lhs, i).contains(end) && attempt(or.lhs, i, end)
+                || parse(or.rhs, i).contains(end) && attempt(or.rhs, i, end);
+        } else if (m instanceof RepeatMatcher r) {
+            return repeat(r, i, end);
+        } else if (m instanceof MemoMatcher memo) {
+            return derive(memo.matcher, i, end);
+        } else if (m instanceof ProfileMatcher p) {
+            return derive(p.matcher, i, end);
+        } else if (m instanceof LazyMatcher lazy) {
+            return derive(lazy.supplier.get(), i, end);
+        } else if (m instanceof DfaMatcher dfa) {
+            return derive(dfa.source, i, end);
+        } else if (m instanceof DispatchMatcher d) {
+            return derive(d.source, i, end);
+        } else if (m instanceof FlatMapMatcher f) {
+            int[] mids = parse(f.matcher, i).toSortedArray();
+            for (int k = mids.length - 1; k >= 0; k--) {
+                int mid = mids[k];
+                if (mid > end) {
+                    continue;
+                }
+                Matcher next = f.mapper.apply(SubSequence.of(s, i, mid));
+                if (parse(next, mid).contains(end) && both(f.matcher, i, mid, next, end)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return parse(m, i).contains(end);
+    }
+
+    /**
+     * 尝试m匹配s[i, end)，失败时恢复捕获组
+     */
+    private boolean attempt(Matcher m, int i, int end) {
+        int[] saved = spans.clone();
+        if (derive(m, i, end)) {
+            return true;
+        }
+        System.arraycopy(saved, 0, spans, 0, spans.length);
+        return false;
+    }
+
+    /**
+     * 尝试a匹配s[i, mid)且b匹配s[mid, end)，失败时恢复捕获组
+     */
+    private boolean both(Matcher a, int i, int mid, Matcher b, int end) {
+        int[] saved = spans.clone();
+        if (derive(a, i, mid) && derive(b, mid, end)) {
+            return true;
+        }
+        System.arraycopy(saved, 0, spans, 0, spans.length);
+        return false;
+    }
+
+    /**
+     * 选择r匹配s[i, end)的一条路径：先只根据解析结果找出各次重复的边界，再依次计算每次重复中的捕获组
+     * 两步都不随重复次数递归，重复次数很多时不会栈溢出
+     */
+    private boolean repeat(RepeatMatcher r, int i, int end) {
+        Set<Long> failed = new HashSet<>();
+        Set<Long> broken = new HashSet<>();
+        while (true) {
+            int[] path = path(r, i, end, failed, broken);
+            if (path == null) {
+                return false;
+            }
+            int[] saved = spans.clone();
+            int k = 1;
+            while (k < path.length && derive(r.matcher, path[k - 1], path[k])) {
+                k++;
+            }
+            if (k == path.length) {
+                return true;
+            }
+            // 这次重复无法选出路径（例如可空的左递归），排除后重新查找
+            System.arraycopy(saved, 0, spans, 0, spans.length);
+            broken.add(((long) path[k - 1] << 32) | path[k]);
+        }
+    }
+
+    /**
+     * 正在查找的重复，已重复的次数即其在栈中的下标
+     */
+    private static final class Frame {
+        final int index;
+        int[] mids;
+        int next;
+
+        Frame(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * 用显式栈深度优先查找r从i重复到end的各次边界，每次优先选择更长的匹配
+     * @param failed 已知无法到达end的(位置, 次数)
+     * @param broken 排除的(起点, 终点)
+     * @return 从i到end的各次边界，找不到时返回null
+     */
+    private int[] path(RepeatMatcher r, int i, int end, Set<Long> failed, Set<Long> broken) {
+        List<Frame> stack = new ArrayList<>();
+        stack.add(new Frame(i));
+        while (!stack.isEmpty()) {
+            int count = stack.size() - 1;
+            Frame f = stack.get(count);
+            // 不限次数时，达到minTimes之后的状态只与位置有关
+            int c = r.maxTimes == Integer.MAX_VALUE ? Math.min(count, r.minTimes) : count;
+            long state = ((long) f.index << 32) | c;
+            if (f.mids == null) {
+                if (f.index == end && count >= r.minTimes) {
+                    int[] path = new int[stack.size()];
+                    for (int k = 0; k < path.length; k++) {
+                        path[k] = stack.get(k).index;
+                    }
+                    return path;
+                }
+                if (count >= r.maxTimes || failed.contains(state)) {
+                    stack.remove(count);
+                    continue;
+                }
+                f.mids = parse(r.matcher, f.index).toSortedArray();
+                f.next = f.mids.length;
+            }
+            Frame child = null;
+            while (child == null && --f.next >= 0) {
+                int mid = f.mids[f.next];
+                // 达到minTimes之后不再接受空的重复
+                if (mid > end || mid == f.index && count >= r.minTimes || broken.contains(((long) f.index << 32) | mid)) {
+                    continue;
+                }
+                child = new Frame(mid);
+            }
+            if (child != null) {
+                stack.add(child);
+            } else {
+                failed.add(state);
+                stack.remove(count);
+            }
+        }
+        return null;
+    }
+}
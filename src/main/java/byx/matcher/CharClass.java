@@ -0,0 +1,281 @@
+package byx.matcher;
+
+import java.util.Arrays;
+
+/**
+ * 字符集合
+ * 使用升序排列且互不相邻的闭区间表示，ASCII字符额外使用位图加速判断，判断过程不装箱
+ * CharClass是不可变的
+ */
+public final class CharClass {
+    private static final CharClass NONE = new CharClass(new char[0]);
+    private static final CharClass ANY = new CharClass(new char[]{Character.MIN_VALUE, Character.MAX_VALUE});
+    private static final CharClass DIGIT = new CharClass(new char[]{'0', '9'});
+    private static final CharClass WORD = new CharClass(new char[]{'0', '9', 'A', 'Z', '_', '_', 'a', 'z'});
+    private static final CharClass SPACE = new CharClass(new char[]{'\t', '\r', ' ', ' '});
+
+    /**
+     * 区间端点，第i个区间为[ranges[2i], ranges[2i+1]]
+     */
+    private final char[] ranges;
+
+    /**
+     * ASCII位图，bits0对应0~63，bits1对应64~127
+     */
+    private final long bits0;
+    private final long bits1;
+
+    private CharClass(char[] ranges) {
+        this.ranges = ranges;
+        long b0 = 0, b1 = 0;
+        for (int i = 0; i < ranges.length && ranges[i] < 128; i += 2) {
+            for (int c = ranges[i]; c <= Math.min(ranges[i + 1], 127); c++) {
+                if (c < 64) {
+                    b0 |= 1L << c;
+                } else {
+                    b1 |= 1L << (c - 64);
+                }
+            }
+        }
+        this.bits0 = b0;
+        this.bits1 = b1;
+    }
+
+    /**
+     * 空集合
+     */
+    public static CharClass none() {
+        return NONE;
+    }
+
+    /**
+     * 包含所有字符的集合
+     */
+    public static CharClass any() {
+        return ANY;
+    }
+
+    /**
+     * 数字字符[0-9]，即正则表达式中的\d
+     */
+    public static CharClass digit() {
+        return DIGIT;
+    }
+
+    /**
+     * 单词字符[0-9A-Z_a-z]，即正则表达式中的\w
+     */
+    public static CharClass word() {
+        return WORD;
+    }
+
+    /**
+     * 空白字符[\t\n\x0B\f\r ]，即正则表达式中的\s
+     */
+    public static CharClass space() {
+        return SPACE;
+    }
+
+    /**
+     * 包含指定字符的集合
+     * @param chars 字符
+     */
+    public static CharClass of(char... chars) {
+        char[] ranges = new char[chars.length * 2];
+        for (int i = 0; i < chars.length; i++) {
+            ranges[2 * i] = chars[i];
+            ranges[2 * i + 1] = chars[i];
+        }
+        return normalize(ranges, ranges.length);
+    }
+
+    /**
+     * 包含[c1, c2]或[c2, c1]范围内所有字符的集合
+     * @param c1 c1
+     * @param c2 c2
+     */
+    public static CharClass range(char c1, char c2) {
+        return new CharClass(new char[]{(char) Math.min(c1, c2), (char) Math.max(c1, c2)});
+    }
+
+    /**
+     * 将任意区间排序并合并重叠和相邻的区间
+     */
+    private static CharClass normalize(char[] ranges, int len) {
+        int n = len / 2;
+        long[] packed = new long[n];
+        for (int i = 0; i < n; i++) {
+            packed[i] = ((long) ranges[2 * i] << 16) | ranges[2 * i + 1];
+        }
+        Arrays.sort(packed);
+
+        char[] result = new char[len];
+        int size = 0;
+        for (long p : packed) {
+            char lo = (char) (p >>> 16), hi = (char) p;
+            if (size > 0 && lo <= result[size - 1] + 1) {
+                result[size - 1] = (char) Math.max(result[size - 1], hi);
+            } else {
+                result[size++] = lo;
+                result[size++] = hi;
+            }
+        }
+        if (size == 0) {
+            return NONE;
+        }
+        return new CharClass(Arrays.copyOf(result, size));
+    }
+
+    /**
+     * 判断是否包含字符c
+     * @param c c
+     */
+    public boolean contains(char c) {
+        if (c < 64) {
+            return (bits0 >>> c & 1) != 0;
+        }
+        if (c < 128) {
+            return (bits1 >>> (c - 64) & 1) != 0;
+        }
+        int lo = 0, hi = ranges.length / 2 - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (c < ranges[2 * mid]) {
+                hi = mid - 1;
+            } else if (c > ranges[2 * mid + 1]) {
+                lo = mid + 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 并集
+     * @param other other
+     */
+    public CharClass union(CharClass other) {
+        char[] merged = Arrays.copyOf(ranges, ranges.length + other.ranges.length);
+        System.arraycopy(other.ranges, 0, merged, ranges.length, other.ranges.length);
+        return normalize(merged, merged.length);
+    }
+
+    /**
+     * 交集
+     * @param other other
+     */
+    public CharClass intersect(CharClass other) {
+        char[] result = new char[ranges.length + other.ranges.length];
+        int size = 0;
+        int i = 0, j = 0;
+        while (i < ranges.length && j < other.ranges.length) {
+            char lo = (char) Math.max(ranges[i], other.ranges[j]);
+            char hi = (char) Math.min(ranges[i + 1], other.ranges[j + 1]);
+            if (lo <= hi) {
+                result[size++] = lo;
+                result[size++] = hi;
+            }
+            if (ranges[i + 1] < other.ranges[j + 1]) {
+                i += 2;
+            } else {
+                j += 2;
+            }
+        }
+        return size == 0 ? NONE : new CharClass(Arrays.copyOf(result, size));
+    }
+
+    /**
+     * 补集
+     */
+    public CharClass negate() {
+        char[] result = new char[ranges.length + 2];
+        int size = 0;
+        int next = Character.MIN_VALUE;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                result[size++] = (char) next;
+                result[size++] = (char) (ranges[i] - 1);
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_VALUE) {
+            result[size++] = (char) next;
+            result[size++] = Character.MAX_VALUE;
+        }
+        return size == 0 ? NONE : new CharClass(Arrays.copyOf(result, size));
+    }
+
+    /**
+     * 是否为空集合
+     */
+    public boolean isEmpty() {
+        return ranges.length == 0;
+    }
+
+    /**
+     * 包含的字符个数
+     */
+    public int size() {
+        int n = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            n += ranges[i + 1] - ranges[i] + 1;
+        }
+        return n;
+    }
+
+    /**
+     * 区间个数
+     */
+    public int rangeCount() {
+        return ranges.length / 2;
+    }
+
+    /**
+     * 第i个区间的起点
+     */
+    public char rangeStart(int i) {
+        return ranges[2 * i];
+    }
+
+    /**
+     * 第i个区间的终点（包含）
+     */
+    public char rangeEnd(int i) {
+        return ranges[2 * i + 1];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof CharClass other && Arrays.equals(ranges, other.ranges);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(ranges);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < ranges.length; i += 2) {
+            appendChar(sb, ranges[i]);
+            if (ranges[i + 1] != ranges[i]) {
+                sb.append('-');
+                appendChar(sb, ranges[i + 1]);
+            }
+        }
+        return sb.append(']').toString();
+    }
+
+    private static void appendChar(StringBuilder sb, char c) {
+        if (c < 32 || c >= 127) {
+            sb.append(String.format("\\u%04x", (int) c));
+        } else {
+            if ("[]\\-^".indexOf(c) >= 0) {
+                sb.append('\\');
+            }
+            sb.append(c);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package byx.matcher;
+
+/**
+ * 匹配字符集合中的单个字符
+ */
+final class CharClassMatcher implements Matcher {
+    final CharClass cls;
+
+    CharClassMatcher(CharClass cls) {
+        this.cls = cls;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (index < s.length() && cls.contains(s.charAt(index))) {
+            ctx.reach(index + 1);
+            result.add(index + 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return cls.toString();
+    }
+}
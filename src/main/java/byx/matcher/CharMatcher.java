@@ -0,0 +1,27 @@
+package byx.matcher;
+
+import java.util.function.Predicate;
+
+/**
+ * 匹配满足条件的单个字符
+ */
+final class CharMatcher implements Matcher {
+    final Predicate<Character> predicate;
+
+    CharMatcher(Predicate<Character> predicate) {
+        this.predicate = predicate;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (index < s.length() && predicate.test(s.charAt(index))) {
+            ctx.reach(index + 1);
+            result.add(index + 1);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ch(predicate)";
+    }
+}
@@ -0,0 +1,102 @@
+package byx.matcher;
+
+/**
+ * 由正则子集编译得到的Matcher，使用惰性构造的DFA进行匹配
+ * 解析结果与编译前的Matcher相同，但时间复杂度与输入长度成线性关系
+ */
+final class DfaMatcher implements Matcher {
+    final Matcher source;
+    final LazyDfa dfa;
+
+    /**
+     * 由compileBytecode生成的字节码，为null时在LazyDfa上解释执行
+     */
+    private final GeneratedDfa generated;
+    private volatile Searcher searcher;
+
+    DfaMatcher(Matcher source, Nfa nfa) {
+        this(source, new LazyDfa(nfa), null);
+    }
+
+    private DfaMatcher(Matcher source, LazyDfa dfa, GeneratedDfa generated) {
+        this.source = source;
+        this.dfa = dfa;
+        this.generated = generated;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (generated != null) {
+            generated.parse(s, index, result, ctx);
+            return;
+        }
+        LazyDfa.State st = dfa.start;
+        if (st.accept) {
+            result.add(index);
+        }
+        for (int i = index; i < s.length() && !result.reached; i++) {
+            st = dfa.next(st, s.charAt(i));
+            if (st == dfa.dead) {
+                ctx.reach(i);
+                return;
+            }
+            if (st.accept) {
+                result.add(i + 1);
+            }
+        }
+        ctx.reach(s.length());
+    }
+
+    @Override
+    public boolean match(CharSequence s, MatchContext ctx) {
+        if (generated != null) {
+            return generated.match(s, ctx);
+        }
+        ctx.reset();
+        LazyDfa.State st = dfa.start;
+        for (int i = 0; i < s.length(); i++) {
+            st = dfa.next(st, s.charAt(i));
+            if (st == dfa.dead) {
+                ctx.reach(i);
+                return false;
+            }
+        }
+        ctx.reach(s.length());
+        return st.accept;
+    }
+
+    Searcher searcher() {
+        Searcher s = searcher;
+        if (s == null) {
+            s = new Searcher(source, dfa.nfa);
+            searcher = s;
+        }
+        return s;
+    }
+
+    @Override
+    public Matcher compile() {
+        return this;
+    }
+
+    @Override
+    public Matcher compileBytecode() {
+        if (generated != null) {
+            return this;
+        }
+        GeneratedDfa g = GeneratedDfa.generate(dfa);
+        return g == null ? this : new DfaMatcher(source, dfa, g);
+    }
+
+    /**
+     * 是否使用生成的字节码匹配
+     */
+    boolean isGenerated() {
+        return generated != null;
+    }
+
+    @Override
+    public String toString() {
+        return (generated != null ? "bytecode(" : "dfa(") + source + ")";
+    }
+}
@@ -0,0 +1,141 @@
+package byx.matcher;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * 按当前字符分派的or，只解析首字符集合包含当前字符或者可以匹配空串的分支，解析结果和尝试顺序与or相同
+ * 分派表在第一次解析时根据各分支的首字符集合构建，此时lazy的目标已经确定，之后不再改变（见Matcher.lazy）
+ */
+final class DispatchMatcher implements Matcher {
+    private static final Matcher[] NONE = new Matcher[0];
+
+    final Matcher[] alternatives;
+
+    /**
+     * 等价的or，供不需要分派的遍历使用
+     */
+    final Matcher source;
+
+    private volatile Table table;
+
+    DispatchMatcher(List<Matcher> alternatives) {
+        this.alternatives = alternatives.toArray(NONE);
+        Matcher m = this.alternatives[0];
+        for (int i = 1; i < this.alternatives.length; i++) {
+            m = new OrMatcher(m, this.alternatives[i]);
+        }
+        this.source = m;
+    }
+
+    /**
+     * 分派表
+     */
+    static final class Table {
+        /**
+         * ASCII字符对应的候选分支，候选分支相同的字符共享同一个数组
+         */
+        final Matcher[][] ascii = new Matcher[128][];
+
+        /**
+         * 到达输入末尾时的候选分支，即可以匹配空串的分支
+         */
+        final Matcher[] atEnd;
+
+        final CharClass[] first;
+        final boolean[] nullable;
+
+        private Table(Matcher[] alternatives, Matcher source) {
+            Lookahead la = Lookahead.of(source);
+            int n = alternatives.length;
+            first = new CharClass[n];
+            nullable = new boolean[n];
+            List<Matcher> end = new ArrayList<>();
+            for (int k = 0; k < n; k++) {
+                first[k] = la.first(alternatives[k]);
+                nullable[k] = la.nullable(alternatives[k]);
+                if (nullable[k]) {
+                    end.add(alternatives[k]);
+                }
+            }
+            atEnd = end.toArray(NONE);
+
+            Map<List<Matcher>, Matcher[]> shared = new HashMap<>();
+            for (char c = 0; c < 128; c++) {
+                List<Matcher> candidates = new ArrayList<>();
+                for (int k = 0; k < n; k++) {
+                    if (accepts(k, c)) {
+                        candidates.add(alternatives[k]);
+                    }
+                }
+                ascii[c] = shared.computeIfAbsent(candidates, l -> l.toArray(NONE));
+            }
+        }
+
+        /**
+         * 第k个分支能否在字符c处开始匹配
+         */
+        boolean accepts(int k, char c) {
+            return nullable[k] || first[k].contains(c);
+        }
+
+        /**
+         * 第k个分支能否在s的index处开始匹配
+         */
+        boolean accepts(int k, CharSequence s, int index) {
+            return index < s.length() ? accepts(k, s.charAt(index)) : nullable[k];
+        }
+    }
+
+    Table table() {
+        Table t = table;
+        if (t == null) {
+            // 构建结果只取决于分支本身，并发时重复构建没有影响
+            t = table = new Table(alternatives, source);
+        }
+        return t;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (ctx.stackDepth >= MatchContext.MAX_STACK_DEPTH) {
+            StackEngine.parse(this, s, index, result, ctx);
+            return;
+        }
+        ctx.stackDepth++;
+        Table t = table();
+        if (index >= s.length()) {
+            parseAll(t.atEnd, s, index, result, ctx);
+        } else {
+            char c = s.charAt(index);
+            if (c < 128) {
+                parseAll(t.ascii[c], s, index, result, ctx);
+            } else {
+                for (int k = 0; k < alternatives.length && !result.reached; k++) {
+                    if (t.accepts(k, c)) {
+                        alternatives[k].parse(s, index, result, ctx);
+                    }
+                }
+            }
+        }
+        ctx.stackDepth--;
+    }
+
+    private static void parseAll(Matcher[] candidates, CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        for (int k = 0; k < candidates.length && !result.reached; k++) {
+            candidates[k].parse(s, index, result, ctx);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(" | ", "(", ")");
+        for (Matcher m : alternatives) {
+            joiner.add(m.toString());
+        }
+        return joiner.toString();
+    }
+}
@@ -0,0 +1,265 @@
+package byx.matcher;
+
+import java.util.Arrays;
+
+/**
+ * 双数组字典树
+ * 状态s经过编码为c的字符转移到t = base[s] + c，当且仅当check[t] == s + 1，check为0表示空闲
+ * 字符编码只为字符串中出现过的字符分配，ASCII字符直接查表，其余字符二分查找
+ */
+final class DoubleArrayTrie {
+    static final int ROOT = 0;
+
+    private final int[] base;
+    private final int[] check;
+
+    /**
+     * 状态对应的字符串是否为某个单词
+     */
+    private final boolean[] terminal;
+
+    /**
+     * 状态对应的字符串长度
+     */
+    final int[] depth;
+
+    /**
+     * ASCII字符的编码，0表示未出现
+     */
+    private final int[] asciiCodes;
+
+    /**
+     * 升序排列的非ASCII字符，编码为asciiCount + 下标 + 1
+     */
+    private final char[] others;
+    private final int asciiCount;
+
+    /**
+     * 编码为i的字符
+     */
+    final char[] alphabet;
+
+    /**
+     * 去重后的单词个数
+     */
+    final int wordCount;
+
+    /**
+     * 状态数组的有效长度
+     */
+    final int size;
+
+    private DoubleArrayTrie(int[] base, int[] check, boolean[] terminal, int[] depth, int[] asciiCodes,
+                            char[] others, int asciiCount, char[] alphabet, int wordCount, int size) {
+        this.base = base;
+        this.check = check;
+        this.terminal = terminal;
+        this.depth = depth;
+        this.asciiCodes = asciiCodes;
+        this.others = others;
+        this.asciiCount = asciiCount;
+        this.alphabet = alphabet;
+        this.wordCount = wordCount;
+        this.size = size;
+    }
+
+    /**
+     * 构建字典树
+     * @param words 单词，可以重复
+     */
+    static DoubleArrayTrie build(String... words) {
+        String[] sorted = Arrays.stream(words).sorted().distinct().toArray(String[]::new);
+        return new Builder(sorted).build();
+    }
+
+    /**
+     * 字符c的编码，未出现过的字符返回0
+     */
+    int code(char c) {
+        if (c < 128) {
+            return asciiCodes[c];
+        }
+        int i = Arrays.binarySearch(others, c);
+        return i < 0 ? 0 : asciiCount + i + 1;
+    }
+
+    /**
+     * 状态s经过字符c转移到的状态
+     * @return 目标状态，不存在时返回-1
+     */
+    int next(int s, char c) {
+        int code = code(c);
+        return code == 0 ? -1 : nextByCode(s, code);
+    }
+
+    /**
+     * 状态s经过编码为code的字符转移到的状态
+     * @return 目标状态，不存在时返回-1
+     */
+    int nextByCode(int s, int code) {
+        int t = base[s] + code;
+        return t < size && check[t] == s + 1 ? t : -1;
+    }
+
+    boolean isTerminal(int s) {
+        return terminal[s];
+    }
+
+    /**
+     * 占用的内存字节数（近似值）
+     */
+    long memoryBytes() {
+        return 4L * base.length + 4L * check.length + terminal.length + 4L * depth.length
+            + 4L * asciiCodes.length + 2L * others.length + 2L * alphabet.length;
+    }
+
+    private static class Builder {
+        private final String[] words;
+        private int[] base = new int[1024];
+        private int[] check = new int[1024];
+        private boolean[] terminal = new boolean[1024];
+        private int[] depth = new int[1024];
+        private final int[] asciiCodes = new int[128];
+        private final char[] others;
+        private final int asciiCount;
+        private final char[] alphabet;
+        private int size = 1;
+
+        /**
+         * 查找空闲位置的起点，该位置之前的位置几乎都已被占用
+         */
+        private int nextCheckPos = 1;
+
+        Builder(String[] words) {
+            this.words = words;
+            // 收集出现过的字符并去重
+            int total = 0;
+            for (String w : words) {
+                total += w.length();
+            }
+            char[] chars = new char[total];
+            int p = 0;
+            for (String w : words) {
+                w.getChars(0, w.length(), chars, p);
+                p += w.length();
+            }
+            Arrays.sort(chars);
+            int distinct = 0;
+            for (int i = 0; i < total; i++) {
+                if (i == 0 || chars[i] != chars[i - 1]) {
+                    chars[distinct++] = chars[i];
+                }
+            }
+
+            int ascii = 0;
+            while (ascii < distinct && chars[ascii] < 128) {
+                ascii++;
+            }
+            this.asciiCount = ascii;
+            this.others = Arrays.copyOfRange(chars, ascii, distinct);
+            this.alphabet = new char[distinct + 1];
+            for (int i = 0; i < distinct; i++) {
+                alphabet[i + 1] = chars[i];
+                if (i < ascii) {
+                    asciiCodes[chars[i]] = i + 1;
+                }
+            }
+            check[ROOT] = -1;
+        }
+
+        private int code(char c) {
+            return c < 128 ? asciiCodes[c] : asciiCount + Arrays.binarySearch(others, c) + 1;
+        }
+
+        DoubleArrayTrie build() {
+            insert(ROOT, 0, words.length, 0);
+            check[ROOT] = 0;
+            return new DoubleArrayTrie(Arrays.copyOf(base, size), Arrays.copyOf(check, size),
+                Arrays.copyOf(terminal, size), Arrays.copyOf(depth, size), asciiCodes, others, asciiCount,
+                alphabet, words.length, size);
+        }
+
+        private void ensure(int n) {
+            if (n > base.length) {
+                int cap = Math.max(n, base.length * 2);
+                base = Arrays.copyOf(base, cap);
+                check = Arrays.copyOf(check, cap);
+                terminal = Arrays.copyOf(terminal, cap);
+                depth = Arrays.copyOf(depth, cap);
+            }
+        }
+
+        /**
+         * 为状态s插入words[from, to)在第d个字符之后的部分，这些单词的前d个字符相同
+         */
+        private void insert(int s, int from, int to, int d) {
+            depth[s] = d;
+            if (words[from].length() == d) {
+                terminal[s] = true;
+                from++;
+            }
+            if (from == to) {
+                return;
+            }
+
+            // 按第d个字符分组，单词已排序，相同字符的单词连续出现
+            int[] codes = new int[to - from];
+            int[] starts = new int[to - from + 1];
+            int n = 0;
+            for (int i = from; i < to; i++) {
+                int c = code(words[i].charAt(d));
+                if (n == 0 || codes[n - 1] != c) {
+                    codes[n] = c;
+                    starts[n++] = i;
+                }
+            }
+            starts[n] = to;
+
+            int b = findBase(codes, n);
+            base[s] = b;
+            for (int i = 0; i < n; i++) {
+                check[b + codes[i]] = s + 1;
+            }
+            size = Math.max(size, b + codes[n - 1] + 1);
+            for (int i = 0; i < n; i++) {
+                insert(b + codes[i], starts[i], starts[i + 1], d + 1);
+            }
+        }
+
+        /**
+         * 查找使所有base + codes[i]都空闲的最小base
+         */
+        private int findBase(int[] codes, int n) {
+            int pos = Math.max(nextCheckPos, codes[0] + 1) - 1;
+            int occupied = 0;
+            int first = 0;
+            while (true) {
+                pos++;
+                ensure(pos + 1);
+                if (check[pos] != 0) {
+                    occupied++;
+                    continue;
+                }
+                if (first == 0) {
+                    first = pos;
+                }
+                int b = pos - codes[0];
+                ensure(b + codes[n - 1] + 1);
+                boolean ok = true;
+                for (int i = 1; i < n; i++) {
+                    if (check[b + codes[i]] != 0) {
+                        ok = false;
+                        break;
+                    }
+                }
+                if (ok) {
+                    // 扫描过的位置大部分已被占用时，下次从第一个空闲位置开始查找
+                    if ((double) occupied / (pos - nextCheckPos + 1) >= 0.95) {
+                        nextCheckPos = first;
+                    }
+                    return b;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package byx.matcher;
+
+import java.util.function.Function;
+
+/**
+ * 应用matcher，并根据解析结果生成下一个Matcher
+ * 传给mapper的是输入的子序列视图，不会复制字符
+ */
+final class FlatMapMatcher implements Matcher {
+    final Matcher matcher;
+    final Function<CharSequence, Matcher> mapper;
+
+    FlatMapMatcher(Matcher matcher, Function<CharSequence, Matcher> mapper) {
+        this.matcher = matcher;
+        this.mapper = mapper;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (ctx.stackDepth >= MatchContext.MAX_STACK_DEPTH) {
+            StackEngine.parse(this, s, index, result, ctx);
+            return;
+        }
+        ctx.stackDepth++;
+        PositionSet set = ctx.borrow();
+        matcher.parse(s, index, set, ctx);
+        ctx.checkPositions(set.size());
+        for (int j = 0; j < set.size() && !result.reached; j++) {
+            ctx.step();
+            int i = set.get(j);
+            Matcher next = mapper.apply(SubSequence.of(s, index, i));
+            next.parse(s, i, result, ctx);
+        }
+        ctx.release(set);
+        ctx.stackDepth--;
+    }
+
+    @Override
+    public String toString() {
+        return "flatMap(" + matcher + ")";
+    }
+}
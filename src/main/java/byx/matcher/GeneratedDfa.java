@@ -0,0 +1,615 @@
+package byx.matcher;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * 将DFA完全展开后生成专用的字节码类，转移表变成tableswitch和按区间比较的分支，由JIT直接编译成机器码
+ * 生成的类作为隐藏类加载，不依赖任何字节码库；NFA中含有任意Predicate、DFA状态过多或方法体超出限制时放弃生成
+ */
+final class GeneratedDfa {
+    /**
+     * 展开的DFA状态数上限
+     */
+    static final int MAX_STATES = 1024;
+
+    /**
+     * 生成的类实现的接口
+     * 从状态state和位置i开始逐个读入字符，直到输入结束、进入死状态，或stop为true时进入接受状态
+     * 返回值的高32位为停止时的位置，低32位为停止时的状态加1，死状态对应0，此时位置为导致失败的字符
+     */
+    interface Runner {
+        long run(CharSequence s, int i, int state, boolean stop);
+    }
+
+    private final Runner runner;
+
+    /**
+     * 状态是否为接受状态，状态0为初始状态
+     */
+    private final boolean[] accept;
+
+    private GeneratedDfa(Runner runner, boolean[] accept) {
+        this.runner = runner;
+        this.accept = accept;
+    }
+
+    /**
+     * 为dfa生成字节码
+     * @return 生成结果，无法生成时返回null
+     */
+    static GeneratedDfa generate(LazyDfa dfa) {
+        if (dfa.start == dfa.dead) {
+            return null;
+        }
+        Expanded e = expand(dfa);
+        if (e == null) {
+            return null;
+        }
+        byte[] bytes = new ClassGenerator(e.transitions, e.accept).generate();
+        if (bytes == null) {
+            return null;
+        }
+        try {
+            Class<?> cls = MethodHandles.lookup().defineHiddenClass(bytes, true).lookupClass();
+            return new GeneratedDfa((Runner) cls.getDeclaredConstructor().newInstance(), e.accept);
+        } catch (ReflectiveOperationException | LinkageError ex) {
+            return null;
+        }
+    }
+
+    /**
+     * 完全展开的DFA，状态0为初始状态
+     * @param bounds 所有字符集合的边界，相邻两个边界之间的字符转移相同
+     * @param transitions 每个状态的转移，每三个元素表示一个区间[lo, hi]及其目标状态，区间升序排列，不在任何区间内的字符转移到死状态
+     * @param accept 状态是否为接受状态
+     */
+    record Expanded(int[] bounds, List<int[]> transitions, boolean[] accept) {
+    }
+
+    /**
+     * 从初始状态出发完全展开dfa
+     * @return 展开结果，NFA中含有任意Predicate或状态数超过MAX_STATES时返回null
+     */
+    static Expanded expand(LazyDfa dfa) {
+        Nfa nfa = dfa.nfa;
+        for (int st = 0; st < nfa.size(); st++) {
+            if (nfa.types[st] == Nfa.CHAR && nfa.classes[st] == null) {
+                return null;
+            }
+        }
+
+        // 按所有字符集合的边界把字符划分成若干区间，同一区间内的字符转移相同
+        TreeSet<Integer> points = new TreeSet<>();
+        points.add(0);
+        points.add(Character.MAX_VALUE + 1);
+        for (int st = 0; st < nfa.size(); st++) {
+            if (nfa.types[st] == Nfa.CHAR) {
+                CharClass cls = nfa.classes[st];
+                for (int k = 0; k < cls.rangeCount(); k++) {
+                    points.add((int) cls.rangeStart(k));
+                    points.add(cls.rangeEnd(k) + 1);
+                }
+            }
+        }
+        int[] bounds = points.stream().mapToInt(Integer::intValue).toArray();
+
+        // 广度优先展开DFA
+        Map<LazyDfa.State, Integer> ids = new IdentityHashMap<>();
+        List<LazyDfa.State> states = new ArrayList<>();
+        ids.put(dfa.start, 0);
+        states.add(dfa.start);
+        List<int[]> transitions = new ArrayList<>();
+        for (int k = 0; k < states.size(); k++) {
+            LazyDfa.State st = states.get(k);
+            // 每三个元素表示一个区间[lo, hi]及其目标状态，相邻的同目标区间合并
+            int[] ranges = new int[3 * (bounds.length - 1)];
+            int n = 0;
+            for (int b = 0; b + 1 < bounds.length; b++) {
+                LazyDfa.State next = dfa.next(st, (char) bounds[b]);
+                if (next == dfa.dead) {
+                    continue;
+                }
+                Integer id = ids.get(next);
+                if (id == null) {
+                    if (states.size() == MAX_STATES) {
+                        return null;
+                    }
+                    id = states.size();
+                    ids.put(next, id);
+                    states.add(next);
+                }
+                if (n > 0 && ranges[n - 1] == id && ranges[n - 2] == bounds[b] - 1) {
+                    ranges[n - 2] = bounds[b + 1] - 1;
+                } else {
+                    ranges[n++] = bounds[b];
+                    ranges[n++] = bounds[b + 1] - 1;
+                    ranges[n++] = id;
+                }
+            }
+            transitions.add(Arrays.copyOf(ranges, n));
+        }
+
+        boolean[] accept = new boolean[states.size()];
+        for (int k = 0; k < accept.length; k++) {
+            accept[k] = states.get(k).accept;
+        }
+        return new Expanded(bounds, transitions, accept);
+    }
+
+    /**
+     * 与DfaMatcher.parse相同
+     */
+    void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        int st = 0, i = index;
+        if (accept[st]) {
+            result.add(index);
+        }
+        while (i < s.length() && !result.reached) {
+            long r = runner.run(s, i, st, true);
+            i = (int) (r >>> 32);
+            st = (int) r - 1;
+            if (st < 0) {
+                ctx.reach(i);
+                return;
+            }
+            if (accept[st]) {
+                result.add(i);
+            }
+        }
+        ctx.reach(s.length());
+    }
+
+    /**
+     * 与DfaMatcher.match相同
+     */
+    boolean match(CharSequence s, MatchContext ctx) {
+        ctx.reset();
+        long r = runner.run(s, 0, 0, false);
+        int st = (int) r - 1;
+        if (st < 0) {
+            ctx.reach((int) (r >>> 32));
+            return false;
+        }
+        ctx.reach(s.length());
+        return accept[st];
+    }
+
+    /**
+     * 生成实现Runner的类文件
+     * run方法的局部变量：0 this，1 s，2 i，3 state，4 stop，5 s.length()，6 当前字符
+     */
+    private static final class ClassGenerator {
+        private static final String NAME = "byx/matcher/GeneratedDfa$Impl";
+        private static final int MAX_CODE_LENGTH = 65535;
+
+        private static final int ICONST_0 = 0x03;
+        private static final int BIPUSH = 0x10;
+        private static final int SIPUSH = 0x11;
+        private static final int LDC_W = 0x13;
+        private static final int ILOAD = 0x15;
+        private static final int ALOAD_0 = 0x2a;
+        private static final int ALOAD_1 = 0x2b;
+        private static final int ISTORE = 0x36;
+        private static final int IADD = 0x60;
+        private static final int LSHL = 0x79;
+        private static final int LOR = 0x81;
+        private static final int IINC = 0x84;
+        private static final int I2L = 0x85;
+        private static final int IFNE = 0x9a;
+        private static final int IF_ICMPLT = 0xa1;
+        private static final int IF_ICMPGE = 0xa2;
+        private static final int IF_ICMPGT = 0xa3;
+        private static final int GOTO = 0xa7;
+        private static final int TABLESWITCH = 0xaa;
+        private static final int LRETURN = 0xad;
+        private static final int RETURN = 0xb1;
+        private static final int INVOKESPECIAL = 0xb7;
+        private static final int INVOKEINTERFACE = 0xb9;
+
+        private final List<int[]> transitions;
+        private final boolean[] accept;
+
+        private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+        private final DataOutputStream poolOut = new DataOutputStream(pool);
+        private final Map<String, Integer> constants = new HashMap<>();
+        private int poolCount = 1;
+
+        private byte[] code = new byte[1024];
+        private int length;
+
+        /**
+         * 标签的位置，-1表示尚未确定
+         */
+        private int[] labels = new int[16];
+        private int labelCount;
+
+        /**
+         * 待回填的跳转偏移量：(跳转指令的位置, 偏移量字段的位置, 标签, 字段是否占4个字节)
+         */
+        private final List<int[]> fixups = new ArrayList<>();
+
+        ClassGenerator(List<int[]> transitions, boolean[] accept) {
+            this.transitions = transitions;
+            this.accept = accept;
+        }
+
+        byte[] generate() {
+            try {
+                int thisClass = classRef(NAME);
+                int superClass = classRef("java/lang/Object");
+                int runnerClass = classRef("byx/matcher/GeneratedDfa$Runner");
+                int charSequence = classRef("java/lang/CharSequence");
+                int objectInit = memberRef(10, superClass, "<init>", "()V");
+                int lengthMethod = memberRef(11, charSequence, "length", "()I");
+                int charAtMethod = memberRef(11, charSequence, "charAt", "(I)C");
+                int codeName = utf8("Code");
+                int stackMapName = utf8("StackMapTable");
+                int initName = utf8("<init>");
+                int initDesc = utf8("()V");
+                int runName = utf8("run");
+                int runDesc = utf8("(Ljava/lang/CharSequence;IIZ)J");
+
+                byte[] runCode = runCode(lengthMethod, charAtMethod);
+                if (runCode == null) {
+                    return null;
+                }
+                byte[] frames = frames(thisClass, charSequence);
+
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                DataOutputStream out = new DataOutputStream(bytes);
+                out.writeInt(0xCAFEBABE);
+                out.writeShort(0);
+                out.writeShort(61);
+                out.writeShort(poolCount);
+                pool.writeTo(out);
+                out.writeShort(0x0010 | 0x0020);
+                out.writeShort(thisClass);
+                out.writeShort(superClass);
+                out.writeShort(1);
+                out.writeShort(runnerClass);
+                out.writeShort(0);
+                out.writeShort(2);
+
+                // public <init>() { super(); }
+                out.writeShort(0x0001);
+                out.writeShort(initName);
+                out.writeShort(initDesc);
+                out.writeShort(1);
+                out.writeShort(codeName);
+                out.writeInt(12 + 5);
+                out.writeShort(1);
+                out.writeShort(1);
+                out.writeInt(5);
+                out.writeByte(ALOAD_0);
+                out.writeByte(INVOKESPECIAL);
+                out.writeShort(objectInit);
+                out.writeByte(RETURN);
+                out.writeShort(0);
+                out.writeShort(0);
+
+                // public long run(CharSequence s, int i, int state, boolean stop)
+                out.writeShort(0x0001);
+                out.writeShort(runName);
+                out.writeShort(runDesc);
+                out.writeShort(1);
+                out.writeShort(codeName);
+                out.writeInt(12 + runCode.length + 6 + frames.length);
+                out.writeShort(4);
+                out.writeShort(7);
+                out.writeInt(runCode.length);
+                out.write(runCode);
+                out.writeShort(0);
+                out.writeShort(1);
+                out.writeShort(stackMapName);
+                out.writeInt(frames.length);
+                out.write(frames);
+
+                out.writeShort(0);
+                return bytes.toByteArray();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        /**
+         * 生成run方法的字节码
+         * <pre>
+         * len = s.length(); c = 0;
+         * LOOP: if (i >= len) goto EXIT;
+         *       c = s.charAt(i++);
+         *       switch (state) { case k: goto S_k; default: goto DEAD; }
+         * S_k:  if (c <= hi && c >= lo) { state = t; if (accept[t] && stop) goto EXIT; goto LOOP; } ...
+         *       goto DEAD;
+         * DEAD: i--; state = -1;
+         * EXIT: return (long) i << 32 | (state + 1);
+         * </pre>
+         */
+        private byte[] runCode(int lengthMethod, int charAtMethod) throws IOException {
+            int n = transitions.size();
+            int loop = newLabel(), dead = newLabel(), exit = newLabel();
+            int[] stateLabels = new int[n];
+            for (int k = 0; k < n; k++) {
+                stateLabels[k] = newLabel();
+            }
+
+            emit(ALOAD_1);
+            emit(INVOKEINTERFACE);
+            emitShort(lengthMethod);
+            emit(1);
+            emit(0);
+            emit(ISTORE);
+            emit(5);
+            emit(ICONST_0);
+            emit(ISTORE);
+            emit(6);
+
+            mark(loop);
+            iload(2);
+            iload(5);
+            jump(IF_ICMPGE, exit);
+            emit(ALOAD_1);
+            iload(2);
+            emit(INVOKEINTERFACE);
+            emitShort(charAtMethod);
+            emit(2);
+            emit(0);
+            emit(ISTORE);
+            emit(6);
+            emit(IINC);
+            emit(2);
+            emit(1);
+
+            iload(3);
+            int switchPos = length;
+            emit(TABLESWITCH);
+            while (length % 4 != 0) {
+                emit(0);
+            }
+            fixup(switchPos, dead, true);
+            emitInt(0);
+            emitInt(n - 1);
+            for (int k = 0; k < n; k++) {
+                fixup(switchPos, stateLabels[k], true);
+            }
+
+            for (int k = 0; k < n; k++) {
+                mark(stateLabels[k]);
+                int[] ranges = transitions.get(k);
+                for (int j = 0; j < ranges.length; j += 3) {
+                    int lo = ranges[j], hi = ranges[j + 1], target = ranges[j + 2];
+                    // 区间按升序排列，c大于hi时检查下一个区间，小于lo时不可能属于后面的区间
+                    int next = newLabel();
+                    if (hi < Character.MAX_VALUE) {
+                        iload(6);
+                        push(hi);
+                        jump(IF_ICMPGT, next);
+                    }
+                    if (lo > 0) {
+                        iload(6);
+                        push(lo);
+                        jump(IF_ICMPLT, dead);
+                    }
+                    push(target);
+                    emit(ISTORE);
+                    emit(3);
+                    if (accept[target]) {
+                        iload(4);
+                        jump(IFNE, exit);
+                    }
+                    jump(GOTO, loop);
+                    mark(next);
+                    if (length > MAX_CODE_LENGTH) {
+                        return null;
+                    }
+                }
+                jump(GOTO, dead);
+            }
+
+            mark(dead);
+            emit(IINC);
+            emit(2);
+            emit(0xff);
+            push(-1);
+            emit(ISTORE);
+            emit(3);
+
+            mark(exit);
+            iload(2);
+            emit(I2L);
+            push(32);
+            emit(LSHL);
+            iload(3);
+            push(1);
+            emit(IADD);
+            emit(I2L);
+            emit(LOR);
+            emit(LRETURN);
+
+            if (length > MAX_CODE_LENGTH) {
+                return null;
+            }
+            for (int[] f : fixups) {
+                int offset = labels[f[2]] - f[0];
+                if (f[3] == 1) {
+                    putInt(f[1], offset);
+                } else if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                    return null;
+                } else {
+                    code[f[1]] = (byte) (offset >> 8);
+                    code[f[1] + 1] = (byte) offset;
+                }
+            }
+            return Arrays.copyOf(code, length);
+        }
+
+        /**
+         * 所有跳转目标处的栈帧都相同：局部变量为(this, CharSequence, int, int, int, int, int)，操作数栈为空
+         */
+        private byte[] frames(int thisClass, int charSequence) throws IOException {
+            TreeSet<Integer> targets = new TreeSet<>();
+            for (int k = 0; k < labelCount; k++) {
+                targets.add(labels[k]);
+            }
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(targets.size());
+            int prev = -1;
+            for (int offset : targets) {
+                out.writeByte(255);
+                out.writeShort(offset - prev - 1);
+                out.writeShort(7);
+                out.writeByte(7);
+                out.writeShort(thisClass);
+                out.writeByte(7);
+                out.writeShort(charSequence);
+                for (int k = 0; k < 5; k++) {
+                    out.writeByte(1);
+                }
+                out.writeShort(0);
+                prev = offset;
+            }
+            return bytes.toByteArray();
+        }
+
+        private int newLabel() {
+            if (labelCount == labels.length) {
+                labels = Arrays.copyOf(labels, labelCount * 2);
+            }
+            labels[labelCount] = -1;
+            return labelCount++;
+        }
+
+        private void mark(int label) {
+            labels[label] = length;
+        }
+
+        private void jump(int opcode, int label) {
+            int pos = length;
+            emit(opcode);
+            fixup(pos, label, false);
+        }
+
+        /**
+         * 在当前位置预留偏移量字段，wide为true时占4个字节，否则占2个字节
+         */
+        private void fixup(int instruction, int label, boolean wide) {
+            fixups.add(new int[]{instruction, length, label, wide ? 1 : 0});
+            if (wide) {
+                emitInt(0);
+            } else {
+                emitShort(0);
+            }
+        }
+
+        private void iload(int local) {
+            emit(ILOAD);
+            emit(local);
+        }
+
+        private void push(int value) {
+            if (value >= -1 && value <= 5) {
+                emit(ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                emit(BIPUSH);
+                emit(value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                emit(SIPUSH);
+                emitShort(value);
+            } else {
+                emit(LDC_W);
+                emitShort(intConstant(value));
+            }
+        }
+
+        private void emit(int b) {
+            if (length == code.length) {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = (byte) b;
+        }
+
+        private void emitShort(int v) {
+            emit(v >> 8);
+            emit(v);
+        }
+
+        private void emitInt(int v) {
+            emitShort(v >> 16);
+            emitShort(v);
+        }
+
+        private void putInt(int pos, int v) {
+            code[pos] = (byte) (v >> 24);
+            code[pos + 1] = (byte) (v >> 16);
+            code[pos + 2] = (byte) (v >> 8);
+            code[pos + 3] = (byte) v;
+        }
+
+        private int utf8(String s) {
+            return constant("utf8:" + s, () -> {
+                poolOut.writeByte(1);
+                poolOut.writeUTF(s);
+            });
+        }
+
+        private int classRef(String name) {
+            int nameIndex = utf8(name);
+            return constant("class:" + name, () -> {
+                poolOut.writeByte(7);
+                poolOut.writeShort(nameIndex);
+            });
+        }
+
+        private int intConstant(int value) {
+            return constant("int:" + value, () -> {
+                poolOut.writeByte(3);
+                poolOut.writeInt(value);
+            });
+        }
+
+        /**
+         * tag为10时是Methodref，为11时是InterfaceMethodref
+         */
+        private int memberRef(int tag, int owner, String name, String desc) {
+            int nameIndex = utf8(name), descIndex = utf8(desc);
+            int nameAndType = constant("nat:" + name + desc, () -> {
+                poolOut.writeByte(12);
+                poolOut.writeShort(nameIndex);
+                poolOut.writeShort(descIndex);
+            });
+            return constant("ref:" + owner + "." + name + desc, () -> {
+                poolOut.writeByte(tag);
+                poolOut.writeShort(owner);
+                poolOut.writeShort(nameAndType);
+            });
+        }
+
+        private interface PoolWriter {
+            void write() throws IOException;
+        }
+
+        private int constant(String key, PoolWriter writer) {
+            Integer index = constants.get(key);
+            if (index == null) {
+                try {
+                    writer.write();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+                index = poolCount++;
+                constants.put(key, index);
+            }
+            return index;
+        }
+    }
+}
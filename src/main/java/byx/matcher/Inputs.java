@@ -0,0 +1,83 @@
+package byx.matcher;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 将字节数据包装成CharSequence供Matcher直接匹配，不复制、不解码整个输入
+ * 返回的视图与CharBuffer一样不是线程安全的
+ */
+public final class Inputs {
+    private Inputs() {
+    }
+
+    /**
+     * 将ByteBuffer中position到limit之间的字节按ASCII（Latin-1）解释为字符序列
+     * @param buf 字节数据
+     */
+    public static CharSequence ascii(ByteBuffer buf) {
+        return new AsciiSequence(buf, buf.position(), buf.limit());
+    }
+
+    /**
+     * 将ByteBuffer中position到limit之间的字节按UTF-8解释为字符序列
+     * 创建时会扫描一遍字节数据以确定字符数并建立稀疏索引，非法字节序列按U+FFFD处理
+     * @param buf 字节数据
+     */
+    public static CharSequence utf8(ByteBuffer buf) {
+        return Utf8Sequence.of(buf, buf.position(), buf.limit());
+    }
+
+    /**
+     * 将文件以只读方式映射到内存，并按UTF-8解释为字符序列
+     * @param file 文件路径
+     */
+    public static CharSequence mapUtf8(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return utf8(buf);
+        }
+    }
+
+    /**
+     * 单字节字符序列
+     */
+    private static final class AsciiSequence implements CharSequence {
+        private final ByteBuffer buf;
+        private final int start;
+        private final int end;
+
+        AsciiSequence(ByteBuffer buf, int start, int end) {
+            this.buf = buf;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException(index);
+            }
+            return (char) (buf.get(start + index) & 0xff);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return SubSequence.of(this, start, end);
+        }
+
+        @Override
+        public String toString() {
+            return new StringBuilder(this).toString();
+        }
+    }
+}
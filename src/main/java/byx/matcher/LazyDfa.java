@@ -0,0 +1,126 @@
+package byx.matcher;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 在NFA上按需构造的DFA
+ * DFA状态和转移在第一次用到时才计算并缓存，状态数超过上限后新的状态不再缓存，匹配时间始终与输入长度成线性关系
+ * 可以被多个线程同时使用
+ */
+final class LazyDfa {
+    /**
+     * 缓存的DFA状态数上限
+     */
+    static final int MAX_CACHED_STATES = 4096;
+
+    final Nfa nfa;
+    final State start;
+    final State dead;
+    private final Map<Key, State> cache = new HashMap<>();
+
+    LazyDfa(Nfa nfa) {
+        this.nfa = nfa;
+        this.dead = new State(new int[0], false, true);
+        this.start = state(nfa.closure(new int[]{nfa.start}, 1));
+    }
+
+    /**
+     * DFA状态，对应一个NFA状态集合
+     */
+    static final class State {
+        final int[] nfaStates;
+        final boolean accept;
+
+        /**
+         * 是否保存在缓存中，只有指向缓存状态的转移才会被记录
+         */
+        final boolean cached;
+
+        /**
+         * ASCII字符的转移缓存，null表示尚未计算
+         */
+        final State[] ascii = new State[128];
+
+        /**
+         * 其余字符的转移缓存
+         */
+        final Map<Character, State> others = new ConcurrentHashMap<>();
+
+        State(int[] nfaStates, boolean accept, boolean cached) {
+            this.nfaStates = nfaStates;
+            this.accept = accept;
+            this.cached = cached;
+        }
+    }
+
+    private record Key(int[] states) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key k && Arrays.equals(states, k.states);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(states);
+        }
+    }
+
+    /**
+     * 获取状态st读入字符c后转移到的状态
+     */
+    State next(State st, char c) {
+        State next = c < 128 ? st.ascii[c] : st.others.get(c);
+        return next != null ? next : computeNext(st, c);
+    }
+
+    private synchronized State computeNext(State st, char c) {
+        if (st == dead) {
+            return dead;
+        }
+
+        int[] targets = new int[st.nfaStates.length];
+        int n = 0;
+        for (int s : st.nfaStates) {
+            if (nfa.types[s] == Nfa.CHAR && nfa.test(s, c)) {
+                targets[n++] = nfa.out1[s];
+            }
+        }
+        State next = n == 0 ? dead : state(nfa.closure(targets, n));
+
+        if (next.cached) {
+            if (c < 128) {
+                st.ascii[c] = next;
+            } else {
+                st.others.put(c, next);
+            }
+        }
+        return next;
+    }
+
+    private State state(int[] closure) {
+        if (closure.length == 0) {
+            return dead;
+        }
+        Key key = new Key(closure);
+        State st = cache.get(key);
+        if (st != null) {
+            return st;
+        }
+        boolean accept = false;
+        for (int s : closure) {
+            if (nfa.types[s] == Nfa.MATCH) {
+                accept = true;
+                break;
+            }
+        }
+        boolean cached = cache.size() < MAX_CACHED_STATES;
+        st = new State(closure, accept, cached);
+        if (cached) {
+            cache.put(key, st);
+        }
+        return st;
+    }
+}
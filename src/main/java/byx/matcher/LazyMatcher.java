@@ -0,0 +1,30 @@
+package byx.matcher;
+
+import java.util.function.Supplier;
+
+/**
+ * 惰性Matcher，每次解析时才通过supplier获取实际的Matcher
+ */
+final class LazyMatcher implements Matcher {
+    final Supplier<Matcher> supplier;
+
+    LazyMatcher(Supplier<Matcher> supplier) {
+        this.supplier = supplier;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (ctx.stackDepth >= MatchContext.MAX_STACK_DEPTH) {
+            StackEngine.parse(this, s, index, result, ctx);
+            return;
+        }
+        ctx.stackDepth++;
+        supplier.get().parse(s, index, result, ctx);
+        ctx.stackDepth--;
+    }
+
+    @Override
+    public String toString() {
+        return "lazy";
+    }
+}
@@ -0,0 +1,170 @@
+package byx.matcher;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 组合子树上每个节点的可空性、首字符集合以及可能匹配的所有字符的集合
+ * lazy的目标在计算时才获取，递归的lazy在不动点上求解；无法确定的节点（如任意Predicate和flatMap生成的Matcher）按任意字符保守估计
+ */
+final class Lookahead {
+    private final Map<Matcher, Matcher> lazyTargets = new IdentityHashMap<>();
+    private final Map<Matcher, Boolean> nullableMap = new IdentityHashMap<>();
+    private final Map<Matcher, CharClass> firstMap = new IdentityHashMap<>();
+    private final Map<Matcher, CharClass> charsMap = new IdentityHashMap<>();
+    private Set<Matcher> done;
+    private boolean changed;
+
+    private Lookahead() {
+    }
+
+    /**
+     * 计算m及其所有子节点的属性
+     */
+    static Lookahead of(Matcher m) {
+        Lookahead la = new Lookahead();
+        do {
+            la.changed = false;
+            la.done = Collections.newSetFromMap(new IdentityHashMap<>());
+            la.properties(m);
+        } while (la.changed);
+        la.done = null;
+        return la;
+    }
+
+    /**
+     * m能否匹配空串
+     */
+    boolean nullable(Matcher m) {
+        return nullableMap.getOrDefault(m, false);
+    }
+
+    /**
+     * m匹配的第一个字符的集合
+     */
+    CharClass first(Matcher m) {
+        return firstMap.getOrDefault(m, CharClass.none());
+    }
+
+    /**
+     * m可能匹配的所有字符的集合
+     */
+    CharClass chars(Matcher m) {
+        return charsMap.getOrDefault(m, CharClass.none());
+    }
+
+    /**
+     * lazy的目标，同一个lazy只获取一次
+     */
+    Matcher target(Matcher m) {
+        return lazyTargets.computeIfAbsent(m, k -> ((LazyMatcher) k).supplier.get());
+    }
+
+    /**
+     * 子节点，lazy的子节点为其目标
+     */
+    List<Matcher> children(Matcher m) {
+        if (m instanceof AndMatcher and) {
+            return List.of(and.lhs, and.rhs);
+        } else if (m instanceof OrMatcher or) {
+            return List.of(or.lhs, or.rhs);
+        } else if (m instanceof RepeatMatcher r) {
+            return List.of(r.matcher);
+        } else if (m instanceof MemoMatcher memo) {
+            return List.of(memo.matcher);
+        } else if (m instanceof CaptureMatcher c) {
+            return List.of(c.matcher);
+        } else if (m instanceof ProfileMatcher p) {
+            return List.of(p.matcher);
+        } else if (m instanceof FlatMapMatcher f) {
+            return List.of(f.matcher);
+        } else if (m instanceof DfaMatcher dfa) {
+            return List.of(dfa.source);
+        } else if (m instanceof DispatchMatcher d) {
+            return List.of(d.source);
+        } else if (m instanceof LazyMatcher) {
+            return List.of(target(m));
+        }
+        return List.of();
+    }
+
+    /**
+     * 计算m能否匹配空串、m匹配的第一个字符的集合以及m可能匹配的所有字符的集合
+     */
+    private void properties(Matcher m) {
+        if (!done.add(m)) {
+            return;
+        }
+        for (Matcher c : children(m)) {
+            properties(c);
+        }
+
+        boolean n;
+        CharClass f, a;
+        if (m instanceof CharClassMatcher c) {
+            n = false;
+            f = a = c.cls;
+        } else if (m instanceof CharMatcher) {
+            n = false;
+            f = a = CharClass.any();
+        } else if (m instanceof StrMatcher str) {
+            n = str.str.isEmpty();
+            f = n ? CharClass.none() : CharClass.of(str.str.charAt(0));
+            a = CharClass.of(str.str.toCharArray());
+        } else if (m instanceof TrieMatcher t) {
+            n = t.trie.isTerminal(DoubleArrayTrie.ROOT);
+            f = CharClass.none();
+            for (int code = 1; code < t.trie.alphabet.length; code++) {
+                if (t.trie.nextByCode(DoubleArrayTrie.ROOT, code) >= 0) {
+                    f = f.union(CharClass.of(t.trie.alphabet[code]));
+                }
+            }
+            a = CharClass.of(Arrays.copyOfRange(t.trie.alphabet, 1, t.trie.alphabet.length));
+        } else if (m instanceof AnchorMatcher) {
+            n = true;
+            f = a = CharClass.none();
+        } else if (m instanceof AndMatcher and) {
+            n = nullable(and.lhs) && nullable(and.rhs);
+            f = nullable(and.lhs) ? first(and.lhs).union(first(and.rhs)) : first(and.lhs);
+            a = chars(and.lhs).union(chars(and.rhs));
+        } else if (m instanceof OrMatcher or) {
+            n = nullable(or.lhs) || nullable(or.rhs);
+            f = first(or.lhs).union(first(or.rhs));
+            a = chars(or.lhs).union(chars(or.rhs));
+        } else if (m instanceof RepeatMatcher r) {
+            n = r.minTimes == 0 || r.maxTimes == 0 || nullable(r.matcher);
+            f = r.maxTimes == 0 ? CharClass.none() : first(r.matcher);
+            a = r.maxTimes == 0 ? CharClass.none() : chars(r.matcher);
+        } else if (m instanceof StoredDfaMatcher stored) {
+            n = stored.nullable();
+            f = stored.first();
+            a = stored.chars();
+        } else if (m instanceof FlatMapMatcher fm) {
+            // 生成的Matcher未知，只能保守估计
+            n = nullable(fm.matcher);
+            f = n ? CharClass.any() : first(fm.matcher);
+            a = CharClass.any();
+        } else {
+            List<Matcher> cs = children(m);
+            if (cs.isEmpty()) {
+                n = true;
+                f = a = CharClass.any();
+            } else {
+                n = nullable(cs.get(0));
+                f = first(cs.get(0));
+                a = chars(cs.get(0));
+            }
+        }
+
+        if (nullable(m) != n || !first(m).equals(f) || !chars(m).equals(a)) {
+            changed = true;
+            nullableMap.put(m, n);
+            firstMap.put(m, f);
+            charsMap.put(m, a);
+        }
+    }
+}
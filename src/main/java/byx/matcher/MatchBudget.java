@@ -0,0 +1,78 @@
+package byx.matcher;
+
+import java.time.Duration;
+
+/**
+ * 一次匹配可以使用的资源上限，超出时抛出BudgetExceededException
+ * <ul>
+ *     <li>maxSteps：and、repeat、many和flatMap的循环中解析子Matcher的总次数</li>
+ *     <li>timeout：从匹配开始计算的时长，每隔一定步数检查一次</li>
+ *     <li>maxPositions：and和repeat的中间位置集合的最大大小</li>
+ * </ul>
+ * MatchBudget不可变，可以在多个线程之间共享
+ */
+public final class MatchBudget {
+    private static final MatchBudget UNLIMITED = new MatchBudget(Long.MAX_VALUE, Long.MAX_VALUE, Integer.MAX_VALUE);
+
+    final long maxSteps;
+    final long timeoutNanos;
+    final int maxPositions;
+
+    private MatchBudget(long maxSteps, long timeoutNanos, int maxPositions) {
+        this.maxSteps = maxSteps;
+        this.timeoutNanos = timeoutNanos;
+        this.maxPositions = maxPositions;
+    }
+
+    /**
+     * 不限制任何资源
+     */
+    public static MatchBudget unlimited() {
+        return UNLIMITED;
+    }
+
+    /**
+     * 限制解析步数
+     * @param maxSteps 最大步数
+     */
+    public MatchBudget maxSteps(long maxSteps) {
+        if (maxSteps < 0) {
+            throw new IllegalArgumentException("maxSteps must be non-negative: " + maxSteps);
+        }
+        return new MatchBudget(maxSteps, timeoutNanos, maxPositions);
+    }
+
+    /**
+     * 限制匹配时长
+     * @param timeout 最长时间
+     */
+    public MatchBudget timeout(Duration timeout) {
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must be non-negative: " + timeout);
+        }
+        long nanos = timeout.compareTo(Duration.ofNanos(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : timeout.toNanos();
+        return new MatchBudget(maxSteps, nanos, maxPositions);
+    }
+
+    /**
+     * 限制中间位置集合的大小
+     * @param maxPositions 最大位置数
+     */
+    public MatchBudget maxPositions(int maxPositions) {
+        if (maxPositions < 0) {
+            throw new IllegalArgumentException("maxPositions must be non-negative: " + maxPositions);
+        }
+        return new MatchBudget(maxSteps, timeoutNanos, maxPositions);
+    }
+
+    boolean isUnlimited() {
+        return maxSteps == Long.MAX_VALUE && timeoutNanos == Long.MAX_VALUE && maxPositions == Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "MatchBudget(maxSteps=" + (maxSteps == Long.MAX_VALUE ? "unlimited" : maxSteps)
+            + ", timeout=" + (timeoutNanos == Long.MAX_VALUE ? "unlimited" : Duration.ofNanos(timeoutNanos))
+            + ", maxPositions=" + (maxPositions == Integer.MAX_VALUE ? "unlimited" : maxPositions) + ")";
+    }
+}
@@ -0,0 +1,458 @@
+package byx.matcher;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * 匹配上下文，保存一次匹配过程中的执行状态
+ * 同一个上下文不能被多个线程同时使用
+ */
+public final class MatchContext {
+    private final MemoTable<PositionSet> memo;
+
+    /**
+     * 正在解析的(Matcher, 位置)，用于检测左递归
+     */
+    private final MemoTable<Head> heads = new MemoTable<>();
+    private int headDepth;
+
+    /**
+     * 当前解析过程读取过的种子所属Head的最小深度，读取了外层未完成的种子的结果不能缓存
+     */
+    private int minSeedDepth = Integer.MAX_VALUE;
+    private CharSequence memoInput;
+    private long memoHits;
+    private long memoMisses;
+    private int furthest;
+
+    /**
+     * 组合子在Java调用栈上的嵌套深度，超过MAX_STACK_DEPTH后改用StackEngine在堆上继续解析
+     */
+    static final int MAX_STACK_DEPTH = 1024;
+    int stackDepth;
+
+    /**
+     * 为null时profile标记的Matcher不做统计
+     */
+    Profiler profiler;
+
+    /**
+     * 每隔多少步检查一次是否超时
+     */
+    private static final int CHECK_INTERVAL = 1024;
+
+    private MatchBudget budget = MatchBudget.unlimited();
+
+    /**
+     * 上一个检查点之前执行的步数
+     */
+    private long steps;
+
+    /**
+     * 上一个检查点到下一个检查点的步数
+     */
+    private long armed;
+
+    /**
+     * 距离下一个检查点剩余的步数，不限制资源时几乎不会到达检查点
+     */
+    private long tick = Long.MAX_VALUE;
+    private long deadline;
+    int maxPositions = Integer.MAX_VALUE;
+
+    /**
+     * 容量超过该值的集合归还时不再缓存，避免一次大输入之后长期占用内存
+     */
+    private static final int MAX_POOLED_CAPACITY = 1 << 16;
+
+    /**
+     * 空闲的位置集合，and、repeat、many和flatMap从这里借用中间集合，多次匹配之间复用已分配的空间
+     */
+    private PositionSet[] pool = new PositionSet[16];
+    private int pooled;
+
+    /**
+     * match(CharSequence)使用的普通模式上下文，每个线程一个
+     */
+    private static final ThreadLocal<MatchContext> LOCAL = ThreadLocal.withInitial(MatchContext::new);
+    private boolean inUse;
+
+    /**
+     * 创建普通模式的上下文
+     */
+    public MatchContext() {
+        this(false);
+    }
+
+    private MatchContext(boolean memoized) {
+        this.memo = memoized ? new MemoTable<>() : null;
+    }
+
+    /**
+     * 创建记忆化模式的上下文
+     * 在该模式下，lazy和memo标记的Matcher在同一位置上只会解析一次，PEG风格的语法可在线性时间内完成匹配
+     */
+    public static MatchContext memoized() {
+        return new MatchContext(true);
+    }
+
+    /**
+     * 是否开启了记忆化
+     */
+    public boolean isMemoized() {
+        return memo != null;
+    }
+
+    /**
+     * 记忆化命中次数
+     */
+    public long memoHits() {
+        return memoHits;
+    }
+
+    /**
+     * 记忆化未命中次数
+     */
+    public long memoMisses() {
+        return memoMisses;
+    }
+
+    /**
+     * 当前记忆化表中的条目数
+     */
+    public int memoSize() {
+        return memo == null ? 0 : memo.size();
+    }
+
+    /**
+     * 清空记忆化表，保留命中统计
+     */
+    public void clearMemo() {
+        if (memo != null) {
+            memo.clear();
+            memoInput = null;
+        }
+    }
+
+    /**
+     * 设置统计profile标记的Matcher的Profiler，为null时关闭统计
+     * @param profiler profiler
+     */
+    public void setProfiler(Profiler profiler) {
+        this.profiler = profiler;
+    }
+
+    /**
+     * 当前使用的Profiler，未启用时返回null
+     */
+    public Profiler profiler() {
+        return profiler;
+    }
+
+    /**
+     * 设置每次匹配可以使用的资源上限，每次调用match时重新计算
+     * @param budget 资源上限
+     */
+    public void setBudget(MatchBudget budget) {
+        this.budget = budget;
+        startBudget();
+    }
+
+    /**
+     * 当前的资源上限
+     */
+    public MatchBudget budget() {
+        return budget;
+    }
+
+    /**
+     * 最近一次匹配执行的步数，只在设置了资源上限时统计
+     */
+    public long steps() {
+        return budget.isUnlimited() ? 0 : steps + (armed - tick);
+    }
+
+    /**
+     * 最近一次匹配中成功解析到的最远位置，匹配失败时通常就是出错的位置
+     */
+    public int furthestPosition() {
+        return furthest;
+    }
+
+    /**
+     * 获取当前线程的普通模式上下文，用完后调用free归还
+     * 该上下文正在使用时（例如在flatMap的mapper中再次调用match）返回新的上下文
+     */
+    static MatchContext acquire() {
+        MatchContext ctx = LOCAL.get();
+        if (ctx.inUse) {
+            return new MatchContext();
+        }
+        ctx.inUse = true;
+        return ctx;
+    }
+
+    /**
+     * 归还acquire获取的上下文
+     */
+    void free() {
+        inUse = false;
+    }
+
+    /**
+     * 借用一个空的位置集合，用完后调用release归还
+     */
+    PositionSet borrow() {
+        if (pooled == 0) {
+            return new PositionSet();
+        }
+        PositionSet set = pool[--pooled];
+        pool[pooled] = null;
+        return set;
+    }
+
+    /**
+     * 归还借用的位置集合，归还后不能再使用
+     */
+    void release(PositionSet set) {
+        if (set.capacity() > MAX_POOLED_CAPACITY) {
+            return;
+        }
+        set.clear();
+        set.target = -1;
+        if (pooled == pool.length) {
+            pool = Arrays.copyOf(pool, pooled * 2);
+        }
+        pool[pooled++] = set;
+    }
+
+    /**
+     * 开始一次新的匹配
+     */
+    void reset() {
+        furthest = 0;
+        stackDepth = 0;
+        startBudget();
+    }
+
+    private void startBudget() {
+        steps = 0;
+        maxPositions = budget.maxPositions;
+        if (budget.isUnlimited()) {
+            tick = Long.MAX_VALUE;
+            return;
+        }
+        if (budget.timeoutNanos != Long.MAX_VALUE) {
+            deadline = System.nanoTime() + budget.timeoutNanos;
+        }
+        arm();
+    }
+
+    private void arm() {
+        long interval = budget.timeoutNanos == Long.MAX_VALUE ? Long.MAX_VALUE : CHECK_INTERVAL;
+        armed = Math.min(interval, budget.maxSteps - steps);
+        tick = armed;
+    }
+
+    /**
+     * 记录一步解析，在and、repeat、many和flatMap的循环中调用
+     */
+    void step() {
+        if (--tick < 0) {
+            checkpoint();
+        }
+    }
+
+    private void checkpoint() {
+        if (budget.isUnlimited()) {
+            tick = Long.MAX_VALUE;
+            return;
+        }
+        steps += armed + 1;
+        if (steps > budget.maxSteps) {
+            steps = budget.maxSteps;
+            tick = armed = 0;
+            throw new BudgetExceededException(BudgetExceededException.Limit.STEPS, steps,
+                "step budget exceeded: " + budget.maxSteps);
+        }
+        if (budget.timeoutNanos != Long.MAX_VALUE && System.nanoTime() - deadline > 0) {
+            tick = armed = 0;
+            throw new BudgetExceededException(BudgetExceededException.Limit.TIMEOUT, steps,
+                "timeout exceeded: " + Duration.ofNanos(budget.timeoutNanos));
+        }
+        arm();
+    }
+
+    /**
+     * 检查中间位置集合的大小
+     */
+    void checkPositions(int size) {
+        if (size > maxPositions) {
+            throw new BudgetExceededException(BudgetExceededException.Limit.POSITIONS, steps(),
+                "position set exceeded: " + maxPositions);
+        }
+    }
+
+    /**
+     * 记录解析到达的位置
+     */
+    void reach(int index) {
+        if (index > furthest) {
+            furthest = index;
+        }
+    }
+
+    /**
+     * 正在解析的(Matcher, 位置)
+     */
+    static final class Head {
+        Matcher matcher;
+        int index;
+        int depth;
+        int savedMinSeedDepth;
+
+        /**
+         * 当前的种子，第一次解析完成前为null
+         */
+        PositionSet seed;
+        boolean recursive;
+
+        void set(Matcher matcher, int index, int depth, int savedMinSeedDepth) {
+            this.matcher = matcher;
+            this.index = index;
+            this.depth = depth;
+            this.savedMinSeedDepth = savedMinSeedDepth;
+            seed = null;
+            recursive = false;
+        }
+    }
+
+    /**
+     * 已结束的Head，与headDepth一样按栈的顺序使用
+     */
+    private Head[] freeHeads = new Head[16];
+    private int freeHeadCount;
+
+    private Head newHead(Matcher m, int index, int depth, int savedMinSeedDepth) {
+        Head head = freeHeadCount == 0 ? new Head() : freeHeads[--freeHeadCount];
+        head.set(m, index, depth, savedMinSeedDepth);
+        return head;
+    }
+
+    private void freeHead(Head head) {
+        head.matcher = null;
+        head.seed = null;
+        if (freeHeadCount == freeHeads.length) {
+            freeHeads = Arrays.copyOf(freeHeads, freeHeadCount * 2);
+        }
+        freeHeads[freeHeadCount++] = head;
+    }
+
+    /**
+     * 使用记忆化表解析字符串，非记忆化模式下直接解析
+     * 解析过程中再次遇到同一位置上的同一Matcher时为左递归，此时返回当前的种子（初始为空），
+     * 然后反复解析并用结果扩大种子，直到不再出现新的位置
+     */
+    void memoParse(Matcher m, CharSequence s, int index, PositionSet result) {
+        Head head = memoBegin(m, s, index, result);
+        if (head == null) {
+            return;
+        }
+        try {
+            PositionSet r = borrow();
+            m.parse(s, index, r, this);
+            while (memoStep(head, r)) {
+                r = borrow();
+                m.parse(s, index, r, this);
+            }
+        } catch (RuntimeException | Error e) {
+            memoAbort(head);
+            throw e;
+        }
+        memoEnd(head, result);
+    }
+
+    /**
+     * 记忆化解析的第一步
+     * @return 命中记忆化表或遇到左递归时直接将结果写入result并返回null，否则返回需要解析的Head
+     */
+    Head memoBegin(Matcher m, CharSequence s, int index, PositionSet result) {
+        if (memo != null) {
+            // 记忆化表只对同一个输入有效
+            if (s != memoInput) {
+                memo.clear();
+                memoInput = s;
+            }
+
+            PositionSet cached = memo.get(m, index);
+            if (cached != null) {
+                memoHits++;
+                result.addAll(cached);
+                return null;
+            }
+            memoMisses++;
+        }
+
+        Head head = heads.get(m, index);
+        if (head != null) {
+            head.recursive = true;
+            minSeedDepth = Math.min(minSeedDepth, head.depth);
+            if (head.seed != null) {
+                result.addAll(head.seed);
+            }
+            return null;
+        }
+
+        head = newHead(m, index, ++headDepth, minSeedDepth);
+        heads.put(m, index, head);
+        minSeedDepth = Integer.MAX_VALUE;
+        return head;
+    }
+
+    /**
+     * 一次解析完成
+     * @param r 本次解析的结果，之后归Head所有
+     * @return 是否发生了左递归并且种子还在扩大，为true时需要再解析一次
+     */
+    boolean memoStep(Head head, PositionSet r) {
+        if (head.seed == null) {
+            head.seed = r;
+            return head.recursive;
+        }
+        boolean grows = false;
+        for (int i = 0; i < r.size(); i++) {
+            grows |= head.seed.add(r.get(i));
+        }
+        release(r);
+        return grows;
+    }
+
+    /**
+     * 记忆化解析的最后一步，将最终结果写入result
+     */
+    void memoEnd(Head head, PositionSet result) {
+        heads.remove(head.matcher, head.index);
+        headDepth--;
+        boolean cached = memo != null && minSeedDepth >= head.depth;
+        if (cached) {
+            memo.put(head.matcher, head.index, head.seed);
+        }
+        minSeedDepth = Math.min(head.savedMinSeedDepth, minSeedDepth);
+        result.addAll(head.seed);
+        if (!cached) {
+            // 没有进入记忆化表的种子可以复用
+            release(head.seed);
+        }
+        freeHead(head);
+    }
+
+    /**
+     * 解析过程抛出异常时撤销Head
+     */
+    void memoAbort(Head head) {
+        heads.remove(head.matcher, head.index);
+        headDepth--;
+        minSeedDepth = head.savedMinSeedDepth;
+        freeHead(head);
+    }
+}
@@ -0,0 +1,106 @@
+package byx.matcher;
+
+/**
+ * 一次成功匹配的结果，记录匹配到的区间[start, end)
+ * 捕获组的区间在第一次查询时才计算，只查询整体区间时没有额外开销
+ */
+public final class MatchResult {
+    private final Matcher matcher;
+    private final CharSequence input;
+    private final int start;
+    private final int end;
+
+    /**
+     * 第g个捕获组的区间为[spans[2g], spans[2g+1])，第一次查询捕获组时计算
+     */
+    private int[] spans;
+
+    MatchResult(CharSequence input, int start, int end) {
+        this(null, input, start, end);
+    }
+
+    MatchResult(Matcher matcher, CharSequence input, int start, int end) {
+        this.matcher = matcher;
+        this.input = input;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * 匹配的起始位置
+     */
+    public int start() {
+        return start;
+    }
+
+    /**
+     * 匹配的结束位置（不包含）
+     */
+    public int end() {
+        return end;
+    }
+
+    /**
+     * 匹配到的字符串
+     */
+    public String group() {
+        return new StringBuilder(end - start).append(input, start, end).toString();
+    }
+
+    private int[] spans() {
+        if (spans == null) {
+            int groups = matcher == null ? 0 : Captures.count(matcher);
+            spans = groups == 0 ? new int[]{start, end} : Captures.derive(matcher, input, start, end, groups);
+        }
+        return spans;
+    }
+
+    /**
+     * 捕获组个数，不包括第0组
+     */
+    public int groupCount() {
+        return spans().length / 2 - 1;
+    }
+
+    /**
+     * 第group个捕获组的起始位置，第0组为整个匹配
+     * @param group 组号
+     * @return 起始位置，该组没有参与匹配时返回-1
+     */
+    public int start(int group) {
+        checkGroup(group);
+        return spans[2 * group];
+    }
+
+    /**
+     * 第group个捕获组的结束位置（不包含），第0组为整个匹配
+     * @param group 组号
+     * @return 结束位置，该组没有参与匹配时返回-1
+     */
+    public int end(int group) {
+        checkGroup(group);
+        return spans[2 * group + 1];
+    }
+
+    /**
+     * 第group个捕获组匹配到的字符串，第0组为整个匹配
+     * @param group 组号
+     * @return 匹配到的字符串，该组没有参与匹配时返回null
+     */
+    public String group(int group) {
+        checkGroup(group);
+        int s = spans[2 * group], e = spans[2 * group + 1];
+        return s < 0 ? null : new StringBuilder(e - s).append(input, s, e).toString();
+    }
+
+    private void checkGroup(int group) {
+        if (group < 0 || group > groupCount()) {
+            throw new IndexOutOfBoundsException("no group " + group);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "[" + start + ", " + end + ") " + group();
+    }
+}
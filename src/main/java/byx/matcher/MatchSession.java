@@ -0,0 +1,125 @@
+package byx.matcher;
+
+/**
+ * 增量匹配会话，输入可以分多次送入，随时查询当前的匹配状态
+ * 对于可以编译成DFA的正则子集，会话只保存当前的DFA状态，占用内存与已输入的长度无关；
+ * 其余Matcher需要保留全部输入并在查询时重新匹配
+ * 会话不是线程安全的
+ */
+public final class MatchSession {
+    /**
+     * 匹配状态
+     */
+    public enum Status {
+        /**
+         * 已输入的内容与Matcher匹配
+         */
+        ACCEPT,
+        /**
+         * 已输入的内容不匹配，且无论后续输入什么都不可能匹配
+         */
+        REJECT,
+        /**
+         * 已输入的内容不匹配，但后续输入可能使其匹配
+         */
+        NEED_MORE
+    }
+
+    private final Matcher matcher;
+    private final LazyDfa dfa;
+    private LazyDfa.State state;
+    private StringBuilder buffer;
+    private long position;
+
+    MatchSession(Matcher matcher) {
+        this.matcher = matcher;
+        if (matcher instanceof DfaMatcher m) {
+            this.dfa = m.dfa;
+        } else {
+            Nfa nfa = Nfa.compile(matcher);
+            this.dfa = nfa == null ? null : new LazyDfa(nfa);
+        }
+        reset();
+    }
+
+    /**
+     * 会话是否只保存有限的状态，为false时会话需要缓存全部输入
+     */
+    public boolean isBounded() {
+        return dfa != null;
+    }
+
+    /**
+     * 已输入的字符数
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * 清空已输入的内容
+     */
+    public void reset() {
+        position = 0;
+        if (dfa != null) {
+            state = dfa.start;
+        } else {
+            buffer = new StringBuilder();
+        }
+    }
+
+    /**
+     * 输入单个字符
+     * @param c 字符
+     * @return 当前会话
+     */
+    public MatchSession feed(char c) {
+        position++;
+        if (dfa == null) {
+            buffer.append(c);
+        } else if (state != dfa.dead) {
+            state = dfa.next(state, c);
+        }
+        return this;
+    }
+
+    /**
+     * 输入一段字符
+     * @param chunk 字符序列
+     * @return 当前会话
+     */
+    public MatchSession feed(CharSequence chunk) {
+        if (dfa == null) {
+            buffer.append(chunk);
+            position += chunk.length();
+            return this;
+        }
+        LazyDfa.State st = state;
+        for (int i = 0; i < chunk.length() && st != dfa.dead; i++) {
+            st = dfa.next(st, chunk.charAt(i));
+        }
+        state = st;
+        position += chunk.length();
+        return this;
+    }
+
+    /**
+     * 当前的匹配状态
+     */
+    public Status status() {
+        if (dfa == null) {
+            return matcher.match(buffer) ? Status.ACCEPT : Status.NEED_MORE;
+        }
+        if (state == dfa.dead) {
+            return Status.REJECT;
+        }
+        return state.accept ? Status.ACCEPT : Status.NEED_MORE;
+    }
+
+    /**
+     * 已输入的内容是否与Matcher匹配
+     */
+    public boolean isAccepted() {
+        return status() == Status.ACCEPT;
+    }
+}
@@ -1,43 +1,290 @@
 package byx.matcher;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 解析器组合子
  */
 public interface Matcher {
+    /**
+     * 解析字符串，将解析后的索引添加到result中
+     * @param s 字符串
+     * @param index 当前索引
+     * @param result 保存解析后的索引集合
+     * @param ctx 本次匹配的上下文
+     */
+    void parse(CharSequence s, int index, PositionSet result, MatchContext ctx);
+
+    /**
+     * 解析字符串，将解析后的索引添加到result中
+     * @param s 字符串
+     * @param index 当前索引
+     * @param result 保存解析后的索引集合
+     */
+    default void parse(CharSequence s, int index, PositionSet result) {
+        MatchContext ctx = MatchContext.acquire();
+        try {
+            ctx.reset();
+            parse(s, index, result, ctx);
+        } finally {
+            ctx.free();
+        }
+    }
+
     /**
      * 解析字符串
      * @param s 字符串
      * @param index 当前索引
      * @return 解析后的索引集合
      */
-    Set<Integer> parse(String s, int index);
+    default Set<Integer> parse(CharSequence s, int index) {
+        PositionSet result = new PositionSet();
+        parse(s, index, result);
+        return result.toSet();
+    }
+
+    /**
+     * 在资源上限内解析字符串
+     * @param s 字符串
+     * @param index 当前索引
+     * @param budget 资源上限
+     * @return 解析后的索引集合
+     * @throws BudgetExceededException 资源超出上限
+     */
+    default Set<Integer> parse(CharSequence s, int index, MatchBudget budget) {
+        MatchContext ctx = new MatchContext();
+        ctx.setBudget(budget);
+        PositionSet result = new PositionSet();
+        parse(s, index, result, ctx);
+        return result.toSet();
+    }
 
     /**
      * 判断指定字符串是否与当前Matcher匹配
      * @param s 字符串
      * @return 是否匹配
      */
-    default boolean match(String s) {
-        return parse(s, 0).stream().anyMatch(i -> i == s.length());
+    default boolean match(CharSequence s) {
+        MatchContext ctx = MatchContext.acquire();
+        try {
+            return match(s, ctx);
+        } finally {
+            ctx.free();
+        }
+    }
+
+    /**
+     * 在资源上限内判断字符串是否与当前Matcher匹配，需要同时开启记忆化等模式时使用MatchContext.setBudget
+     * @param s 字符串
+     * @param budget 资源上限
+     * @return 是否匹配
+     * @throws BudgetExceededException 资源超出上限
+     */
+    default boolean match(CharSequence s, MatchBudget budget) {
+        MatchContext ctx = new MatchContext();
+        ctx.setBudget(budget);
+        return match(s, ctx);
+    }
+
+    /**
+     * 使用指定的上下文判断字符串是否与当前Matcher匹配
+     * 解析过程以输入末尾为目标，一旦末尾可达就不再计算剩余分支；匹配失败时可通过ctx.furthestPosition()获取出错位置
+     * @param s 字符串
+     * @param ctx 上下文，可用于开启记忆化等执行模式
+     * @return 是否匹配
+     */
+    default boolean match(CharSequence s, MatchContext ctx) {
+        ctx.clearMemo();
+        ctx.reset();
+        PositionSet result = ctx.borrow();
+        result.target = s.length();
+        parse(s, 0, result, ctx);
+        boolean reached = result.reached;
+        ctx.release(result);
+        return reached;
+    }
+
+    /**
+     * 对当前Matcher做代数化简：合并相邻的字符串、将单字符的or合并成字符集合、提取or的公共前缀、合并嵌套的repeat
+     * 化简后的解析结果不变，但节点数和每个字符上的调用次数更少，lazy的目标不会被化简
+     * @return 化简后的Matcher
+     */
+    default Matcher optimize() {
+        return Optimizer.optimize(this);
+    }
+
+    /**
+     * 将当前Matcher编译成基于DFA的Matcher，编译后的解析结果不变，但匹配时间与输入长度成线性关系
+     * 只有ch、str、and、or、repeat、many以及非递归的lazy组成的正则子集才能被编译，否则返回当前Matcher本身
+     * @return 编译后的Matcher
+     */
+    default Matcher compile() {
+        Nfa nfa = Nfa.compile(Optimizer.optimize(this));
+        return nfa == null ? this : new DfaMatcher(this, nfa);
+    }
+
+    /**
+     * 将当前Matcher编译成DFA后再生成专用的字节码类，避免通过Matcher接口逐层调用parse
+     * 不属于正则子集时返回当前Matcher本身；包含任意Predicate或DFA状态过多时返回compile()的结果
+     * @return 编译后的Matcher
+     */
+    default Matcher compileBytecode() {
+        Matcher m = compile();
+        return m == this ? this : m.compileBytecode();
+    }
+
+    /**
+     * 静态分析当前Matcher，估计最坏情况下的复杂度并找出可空的循环体、嵌套的repeat和有重叠的or分支
+     * 可以配合Analysis.check在构建阶段拒绝有风险的Matcher
+     * @return 分析结果
+     */
+    default Analysis analyze() {
+        return Analysis.of(this);
+    }
+
+    /**
+     * 使用ForkJoinPool.commonPool()并行匹配多个字符串，需要指定线程池时使用BatchMatcher
+     * @param inputs 输入
+     * @return 第i个元素表示第i个输入是否匹配
+     */
+    default boolean[] matchAll(List<? extends CharSequence> inputs) {
+        return new BatchMatcher(this).matchAll(inputs);
+    }
+
+    /**
+     * 使用ForkJoinPool.commonPool()并行匹配多个字符串
+     * @param inputs 输入
+     * @return 第i个元素表示第i个输入是否匹配
+     */
+    default boolean[] matchAll(Stream<? extends CharSequence> inputs) {
+        return new BatchMatcher(this).matchAll(inputs);
+    }
+
+    /**
+     * 使用ForkJoinPool.commonPool()并行匹配多个字符串
+     * @param inputs 输入
+     * @return 第i位表示第i个输入是否匹配
+     */
+    default BitSet matchAllBits(List<? extends CharSequence> inputs) {
+        return new BatchMatcher(this).matchAllBits(inputs);
+    }
+
+    /**
+     * 判断整个字符串是否与当前Matcher匹配，匹配时返回可以查询捕获组的结果
+     * @param s 字符串
+     * @return 匹配结果，不匹配时为空
+     */
+    default Optional<MatchResult> matchResult(CharSequence s) {
+        return match(s) ? Optional.of(new MatchResult(this, s, 0, s.length())) : Optional.empty();
+    }
+
+    /**
+     * 查找字符串中第一个与当前Matcher匹配的子串
+     * @param s 字符串
+     * @return 起始位置最靠左的匹配，同一起始位置取最长的匹配
+     */
+    default Optional<MatchResult> find(CharSequence s) {
+        return find(s, 0);
+    }
+
+    /**
+     * 从from开始查找第一个与当前Matcher匹配的子串
+     * 属于正则子集的Matcher只扫描一遍输入，反复查找时建议先调用compile
+     * @param s 字符串
+     * @param from 起始位置
+     * @return 起始位置最靠左的匹配，同一起始位置取最长的匹配
+     */
+    default Optional<MatchResult> find(CharSequence s, int from) {
+        return Optional.ofNullable(Searcher.of(this).find(s, from));
+    }
+
+    /**
+     * 查找字符串中所有互不重叠的匹配
+     * @param s 字符串
+     * @return 按位置排列的匹配结果
+     */
+    default List<MatchResult> findAll(CharSequence s) {
+        Searcher searcher = Searcher.of(this);
+        List<MatchResult> results = new ArrayList<>();
+        int from = 0;
+        while (from <= s.length()) {
+            MatchResult r = searcher.find(s, from);
+            if (r == null) {
+                break;
+            }
+            results.add(r);
+            from = r.end() > r.start() ? r.end() : r.end() + 1;
+        }
+        return results;
+    }
+
+    /**
+     * 以所有非空匹配为分隔符拆分字符串
+     * @param s 字符串
+     * @return 拆分后的子串，包括首尾的空串
+     */
+    default List<String> split(CharSequence s) {
+        List<String> parts = new ArrayList<>();
+        int prev = 0;
+        for (MatchResult r : findAll(s)) {
+            if (r.end() > r.start()) {
+                parts.add(s.subSequence(prev, r.start()).toString());
+                prev = r.end();
+            }
+        }
+        parts.add(s.subSequence(prev, s.length()).toString());
+        return parts;
+    }
+
+    /**
+     * 创建增量匹配会话，输入可以分块送入
+     * 当前Matcher属于正则子集时会话占用的内存与输入长度无关，对同一个Matcher反复创建会话时建议先调用compile
+     * @return 匹配会话
+     */
+    default MatchSession session() {
+        return new MatchSession(this);
     }
 
     /**
      * 匹配任意单个字符
      */
-    Matcher any = ch(c -> true);
+    Matcher any = ch(CharClass.any());
+
+    /**
+     * 匹配输入的开头，不消耗字符
+     */
+    Matcher begin = new AnchorMatcher(true);
+
+    /**
+     * 匹配输入的结尾，不消耗字符
+     */
+    Matcher end = new AnchorMatcher(false);
+
+    /**
+     * 使用解析函数创建Matcher，解析函数返回从index开始解析后的索引集合
+     * 旧版本中实现parse(String, int)的自定义Matcher可以通过该方法迁移，例如Matcher.of((s, i) -> Set.of(i + 1))
+     * @param parser 解析函数
+     */
+    static Matcher of(BiFunction<CharSequence, Integer, Set<Integer>> parser) {
+        return new AdapterMatcher(parser);
+    }
 
     /**
      * 匹配单个指定字符c
      * @param c c
      */
     static Matcher ch(char c) {
-        return ch(ch -> ch == c);
+        return ch(CharClass.of(c));
     }
 
     /**
@@ -45,8 +292,11 @@ public interface Matcher {
      * @param chs 字符集
      */
     static Matcher chs(Character... chs) {
-        Set<Character> set = Arrays.stream(chs).collect(Collectors.toSet());
-        return ch(set::contains);
+        char[] arr = new char[chs.length];
+        for (int i = 0; i < chs.length; i++) {
+            arr[i] = chs[i];
+        }
+        return ch(CharClass.of(arr));
     }
 
     /**
@@ -54,7 +304,7 @@ public interface Matcher {
      * @param c c
      */
     static Matcher not(char c) {
-        return ch(ch -> ch != c);
+        return ch(CharClass.of(c).negate());
     }
 
     /**
@@ -63,7 +313,15 @@ public interface Matcher {
      * @param c2 c2
      */
     static Matcher range(char c1, char c2) {
-        return ch(c -> (c - c1) * (c - c2) <= 0);
+        return ch(CharClass.range(c1, c2));
+    }
+
+    /**
+     * 匹配字符集合中的单个字符
+     * @param cls 字符集合
+     */
+    static Matcher ch(CharClass cls) {
+        return new CharClassMatcher(cls);
     }
 
     /**
@@ -71,13 +329,7 @@ public interface Matcher {
      * @param predicate 判断字符是否满足条件
      */
     static Matcher ch(Predicate<Character> predicate) {
-        return (s, index) -> {
-            if (index < s.length() && predicate.test(s.charAt(index))) {
-                return Set.of(index + 1);
-            } else {
-                return Collections.emptySet();
-            }
-        };
+        return new CharMatcher(predicate);
     }
 
     /**
@@ -85,31 +337,29 @@ public interface Matcher {
      * @param str str
      */
     static Matcher str(String str) {
-        return (s, index) -> {
-            if (s.startsWith(str, index)) {
-                return Set.of(index + str.length());
-            } else {
-                return Collections.emptySet();
-            }
-        };
+        return new StrMatcher(str);
     }
 
     /**
-     * 匹配字符串集合
+     * 匹配字符串集合，字符串集合保存在双数组字典树中，find时使用AC自动机
      * @param s1 s1
      * @param s2 s2
      * @param strs strs
      */
     static Matcher strs(String s1, String s2, String... strs) {
-        return Arrays.stream(strs).map(Matcher::str).reduce(str(s1).or(str(s2)), Matcher::or);
+        String[] words = Arrays.copyOf(strs, strs.length + 2);
+        words[strs.length] = s1;
+        words[strs.length + 1] = s2;
+        return new TrieMatcher(DoubleArrayTrie.build(words));
     }
 
     /**
-     * 惰性Matcher
+     * 惰性Matcher，支持直接和间接的左递归，例如expr = expr '+' term | term
+     * supplier第一次被调用之后必须总是返回同一个Matcher：compile、oneOf的分派表等只在第一次使用时读取一次目标
      * @param supplier 返回Matcher的工厂函数
      */
     static Matcher lazy(Supplier<Matcher> supplier) {
-        return (s, index) -> supplier.get().parse(s, index);
+        return new LazyMatcher(supplier).memo();
     }
 
     /**
@@ -123,13 +373,49 @@ public interface Matcher {
     }
 
     /**
-     * 使用or连接多个Matcher
+     * 使用or连接多个Matcher，全部为字符串且不全是单个字符时等价于strs
+     * 否则按当前字符分派：只尝试首字符集合包含当前字符或者可以匹配空串的分支，解析结果与依次or相同
+     * 分派表在第一次解析时构建，分支中lazy的目标在此之后改变不会更新分派表
      * @param m1 m1
      * @param m2 m2
      * @param matchers matchers
      */
     static Matcher oneOf(Matcher m1, Matcher m2, Matcher... matchers) {
-        return Arrays.stream(matchers).reduce(m1.or(m2), Matcher::or);
+        Matcher trie = TrieMatcher.ofLiterals(m1, m2, matchers);
+        if (trie != null) {
+            return trie;
+        }
+        List<Matcher> alternatives = new ArrayList<>(List.of(m1, m2));
+        alternatives.addAll(Arrays.asList(matchers));
+        return new DispatchMatcher(alternatives);
+    }
+
+    /**
+     * 将当前Matcher匹配到的子串记录为第group个捕获组，可通过MatchResult查询
+     * 捕获组不影响解析过程，只在查询时计算
+     * @param group 组号，从1开始
+     */
+    default Matcher capture(int group) {
+        if (group < 1) {
+            throw new IllegalArgumentException("group must be positive: " + group);
+        }
+        return new CaptureMatcher(this, group);
+    }
+
+    /**
+     * 标记需要统计执行情况的Matcher，MatchContext设置了Profiler时按name汇总统计数据，否则直接解析
+     * @param name 统计数据中的名称
+     */
+    default Matcher profile(String name) {
+        return new ProfileMatcher(this, name);
+    }
+
+    /**
+     * 在记忆化模式下缓存当前Matcher在每个位置上的解析结果，非记忆化模式下直接解析
+     * lazy创建的Matcher已默认带有该标记
+     */
+    default Matcher memo() {
+        return new MemoMatcher(this);
     }
 
     /**
@@ -138,34 +424,7 @@ public interface Matcher {
      * @param maxTimes maxTimes
      */
     default Matcher repeat(int minTimes, int maxTimes) {
-        return (s, index) -> {
-            // 应用minTimes次
-            Set<Integer> set = Set.of(index);
-            for (int i = 0; i < minTimes; i++) {
-                set = set.stream()
-                    .flatMap(idx -> parse(s, idx).stream())
-                    .collect(Collectors.toSet());
-            }
-
-            // 继续应用直到maxTimes次
-            Set<Integer> result = new HashSet<>(set);
-            Queue<Integer> queue = new ArrayDeque<>(set);
-            int times = minTimes;
-            while (!queue.isEmpty() && times < maxTimes) {
-                int cnt = queue.size();
-                while (cnt-- > 0) {
-                    for (int i : parse(s, queue.remove())) {
-                        if (!result.contains(i)) {
-                            result.add(i);
-                            queue.add(i);
-                        }
-                    }
-                }
-                times++;
-            }
-
-            return result;
-        };
+        return new RepeatMatcher(this, minTimes, maxTimes);
     }
 
     /**
@@ -181,13 +440,7 @@ public interface Matcher {
      * @param rhs rhs
      */
     default Matcher and(Matcher rhs) {
-        return (s, index) -> {
-            Set<Integer> r = new HashSet<>();
-            for (int i : parse(s, index)) {
-                r.addAll(rhs.parse(s, i));
-            }
-            return r;
-        };
+        return new AndMatcher(this, rhs);
     }
 
     /**
@@ -211,11 +464,7 @@ public interface Matcher {
      * @param rhs rhs
      */
     default Matcher or(Matcher rhs) {
-        return (s, index) -> {
-            Set<Integer> result = new HashSet<>(parse(s, index));
-            result.addAll(rhs.parse(s, index));
-            return result;
-        };
+        return new OrMatcher(this, rhs);
     }
 
     /**
@@ -239,28 +488,7 @@ public interface Matcher {
      * @param minTimes 最少应用次数
      */
     default Matcher many(int minTimes) {
-        return (s, index) -> {
-            // 应用minTimes次
-            Set<Integer> set = Set.of(index);
-            for (int i = 0; i < minTimes; i++) {
-                set = set.stream()
-                    .flatMap(idx -> parse(s, idx).stream())
-                    .collect(Collectors.toSet());
-            }
-
-            Queue<Integer> queue = new ArrayDeque<>(set);
-            Set<Integer> result = new HashSet<>(set);
-            while (!queue.isEmpty()) {
-                for (int i : parse(s, queue.remove())) {
-                    if (!result.contains(i)) {
-                        result.add(i);
-                        queue.add(i);
-                    }
-                }
-            }
-
-            return result;
-        };
+        return new RepeatMatcher(this, minTimes, Integer.MAX_VALUE);
     }
 
     /**
@@ -282,14 +510,15 @@ public interface Matcher {
      * @param mapper 将解析结果映射为下一个Matcher
      */
     default Matcher flatMap(Function<String, Matcher> mapper) {
-        return (s, index) -> {
-            Set<Integer> result = new HashSet<>();
-            parse(s, index).forEach(i -> {
-                String matchStr = s.substring(index, i);
-                Matcher next = mapper.apply(matchStr);
-                result.addAll(next.parse(s, i));
-            });
-            return result;
-        };
+        return flatMapView(seq -> mapper.apply(seq.toString()));
+    }
+
+    /**
+     * 应用当前Matcher，并根据解析结果生成下一个Matcher
+     * 解析结果以输入的子序列视图传给mapper，不复制字符
+     * @param mapper 将解析结果映射为下一个Matcher
+     */
+    default Matcher flatMapView(Function<CharSequence, Matcher> mapper) {
+        return new FlatMapMatcher(this, mapper);
     }
 }
@@ -0,0 +1,274 @@
+package byx.matcher;
+
+import static byx.matcher.Matcher.*;
+
+/**
+ * 将正则表达式字符串解析成Matcher
+ * 支持的语法：
+ * <ul>
+ *     <li>字符：普通字符、转义字符\c、任意字符.</li>
+ *     <li>字符集合：[abc]、[a-z]、[^abc]，集合内可以使用转义字符和\d、\w、\s</li>
+ *     <li>预定义字符集合：\d、\w、\s及其补集\D、\W、\S</li>
+ *     <li>重复：*、+、?、{m}、{m,}、{m,n}</li>
+ *     <li>锚点：^匹配输入开头，$匹配输入结尾</li>
+ *     <li>分组和选择：(expr)、expr|expr，括号按左括号出现的顺序编号为捕获组</li>
+ * </ul>
+ */
+public class MatcherParser {
+    /**
+     * 默认最多缓存的表达式个数
+     */
+    private static final int CACHE_SIZE = 1024;
+
+    /**
+     * 默认缓存的表达式长度之和的上限
+     */
+    private static final long CACHE_WEIGHT = 1 << 20;
+
+    private static final PatternCache PARSE_CACHE = new PatternCache(CACHE_SIZE, CACHE_WEIGHT);
+    private static final PatternCache COMPILE_CACHE = new PatternCache(CACHE_SIZE, CACHE_WEIGHT);
+
+    private final String expr;
+    private int index;
+    private int groups;
+
+    private MatcherParser(String expr) {
+        this.expr = expr;
+    }
+
+    /**
+     * 将正则表达式解析成Matcher并编译成基于DFA的Matcher，结果会被缓存
+     * @param expr 正则表达式
+     */
+    public static Matcher compile(String expr) {
+        return COMPILE_CACHE.get(expr, e -> parse(e).compile());
+    }
+
+    /**
+     * 将正则表达式解析成Matcher，结果会被缓存，相同的表达式返回同一个Matcher
+     * @param expr 正则表达式
+     */
+    public static Matcher parse(String expr) {
+        return PARSE_CACHE.get(expr, MatcherParser::doParse);
+    }
+
+    /**
+     * parse使用的缓存
+     */
+    public static PatternCache parseCache() {
+        return PARSE_CACHE;
+    }
+
+    /**
+     * compile使用的缓存
+     */
+    public static PatternCache compileCache() {
+        return COMPILE_CACHE;
+    }
+
+    private static Matcher doParse(String expr) {
+        try {
+            MatcherParser parser = new MatcherParser(expr);
+            Matcher m = parser.parseExpr();
+            if (parser.index < expr.length()) {
+                throw new RuntimeException("unexpected: " + expr.charAt(parser.index));
+            }
+            return m.optimize();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Unknown parse error", e);
+        }
+    }
+
+    private boolean end() {
+        return index == expr.length();
+    }
+
+    private char peek() {
+        return expr.charAt(index);
+    }
+
+    private char next() {
+        if (end()) {
+            throw new RuntimeException("unexpected end of expression");
+        }
+        return expr.charAt(index++);
+    }
+
+    private void read(char c) {
+        if (end() || peek() != c) {
+            throw new RuntimeException("expected: " + c);
+        }
+        index++;
+    }
+
+    // expr = term ('|' term)*
+    private Matcher parseExpr() {
+        Matcher m = parseTerm();
+        while (!end() && peek() == '|') {
+            index++;
+            m = m.or(parseTerm());
+        }
+        return m;
+    }
+
+    // term = factor+
+    private Matcher parseTerm() {
+        Matcher m = parseFactor();
+        while (!end() && peek() != ')' && peek() != '|') {
+            m = m.and(parseFactor());
+        }
+        return m;
+    }
+
+    // factor = elem '*'
+    //        | elem '+'
+    //        | elem '?'
+    //        | elem '{' num '}'
+    //        | elem '{' num ',' '}'
+    //        | elem '{' num ',' num '}'
+    //        | elem
+    private Matcher parseFactor() {
+        Matcher m = parseElem();
+        if (end()) {
+            return m;
+        }
+        switch (peek()) {
+            case '*' -> {
+                index++;
+                return m.many();
+            }
+            case '+' -> {
+                index++;
+                return m.many1();
+            }
+            case '?' -> {
+                index++;
+                return m.repeat(0, 1);
+            }
+            case '{' -> {
+                index++;
+                int min = parseNum();
+                int max = min;
+                if (!end() && peek() == ',') {
+                    index++;
+                    max = !end() && peek() == '}' ? Integer.MAX_VALUE : parseNum();
+                }
+                read('}');
+                if (min > max) {
+                    throw new RuntimeException("illegal repetition: {" + min + "," + max + "}");
+                }
+                return m.repeat(min, max);
+            }
+            default -> {
+                return m;
+            }
+        }
+    }
+
+    // num = digit+
+    private int parseNum() {
+        int start = index;
+        long n = 0;
+        while (!end() && peek() >= '0' && peek() <= '9') {
+            // Integer.MAX_VALUE表示不限次数，不能作为重复次数
+            n = Math.min(n * 10 + (peek() - '0'), Integer.MAX_VALUE);
+            index++;
+        }
+        if (start == index) {
+            throw new RuntimeException("expected: number");
+        }
+        if (n == Integer.MAX_VALUE) {
+            throw new RuntimeException("illegal repetition count: " + expr.substring(start, index));
+        }
+        return (int) n;
+    }
+
+    // elem = '(' expr ')'
+    //      | '[' '^'? range ']'
+    //      | '.'
+    //      | '^'
+    //      | '$'
+    //      | '\' char
+    //      | char
+    private Matcher parseElem() {
+        switch (next()) {
+            case '(' -> {
+                // 捕获组按左括号出现的顺序编号
+                int group = ++groups;
+                Matcher m = parseExpr();
+                read(')');
+                return m.capture(group);
+            }
+            case '[' -> {
+                boolean negate = !end() && peek() == '^';
+                if (negate) {
+                    index++;
+                }
+                CharClass cls = parseRange();
+                read(']');
+                return ch(negate ? cls.negate() : cls);
+            }
+            case '.' -> {
+                return any;
+            }
+            case '^' -> {
+                return begin;
+            }
+            case '$' -> {
+                return Matcher.end;
+            }
+            case '\\' -> {
+                return ch(parseEscape());
+            }
+            default -> {
+                return ch(expr.charAt(index - 1));
+            }
+        }
+    }
+
+    // 转义字符，index指向'\'之后的字符
+    private CharClass parseEscape() {
+        char c = next();
+        return switch (c) {
+            case 'd' -> CharClass.digit();
+            case 'D' -> CharClass.digit().negate();
+            case 'w' -> CharClass.word();
+            case 'W' -> CharClass.word().negate();
+            case 's' -> CharClass.space();
+            case 'S' -> CharClass.space().negate();
+            default -> CharClass.of(c);
+        };
+    }
+
+    // range = rangeItem+
+    private CharClass parseRange() {
+        CharClass cls = parseRangeItem();
+        while (!end() && peek() != ']') {
+            cls = cls.union(parseRangeItem());
+        }
+        return cls;
+    }
+
+    // rangeItem = rangeChar '-' rangeChar
+    //           | '\' char
+    //           | char
+    private CharClass parseRangeItem() {
+        CharClass c1 = parseRangeChar();
+        if (c1.size() == 1 && index + 1 < expr.length() && peek() == '-' && expr.charAt(index + 1) != ']') {
+            index++;
+            CharClass c2 = parseRangeChar();
+            if (c2.size() != 1) {
+                throw new RuntimeException("illegal range");
+            }
+            return CharClass.range(c1.rangeStart(0), c2.rangeStart(0));
+        }
+        return c1;
+    }
+
+    private CharClass parseRangeChar() {
+        char c = next();
+        return c == '\\' ? parseEscape() : CharClass.of(c);
+    }
+}
@@ -0,0 +1,305 @@
+package byx.matcher;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+/**
+ * 以二进制格式保存的一组已编译的Matcher，按名称查找
+ * 只有正则子集可以保存，保存的是完全展开的DFA：字符按转移是否相同划分成若干字符类，转移表以字符类为列
+ * 加载时只检查文件头和各条目的偏移，get时检查对应DFA的范围，匹配直接读取字节数据（通常是内存映射的文件），无需重新解析表达式或构造DFA
+ *
+ * <pre>
+ * 文件头：int MAGIC, int VERSION, int count，之后是按名称排序的count个条目 (int nameOffset, int nameLength, int dfaOffset)
+ * 名称：UTF-16字符
+ * DFA（4字节对齐）：int stateCount, int classCount, int rangeCount,
+ *     char[128] ASCII字符的字符类, char[rangeCount] 区间起点, char[rangeCount] 区间的字符类,
+ *     byte[stateCount] 是否为接受状态（补齐到2字节）, char[stateCount * classCount] 目标状态加1，0表示死状态
+ * </pre>
+ * 状态0为初始状态，所有数值均为大端序
+ */
+public final class MatcherStore {
+    private static final int MAGIC = 0x42594D53;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int ENTRY_SIZE = 12;
+
+    private final ByteBuffer buf;
+    private final int count;
+
+    private MatcherStore(ByteBuffer buf) {
+        this.buf = buf;
+        if (buf.capacity() < HEADER_SIZE || buf.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not a matcher store");
+        }
+        if (buf.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("unsupported matcher store version: " + buf.getInt(4));
+        }
+        this.count = buf.getInt(8);
+        if (count < 0 || HEADER_SIZE + (long) count * ENTRY_SIZE > buf.capacity()) {
+            throw corrupt();
+        }
+        for (int i = 0; i < count; i++) {
+            int entry = HEADER_SIZE + i * ENTRY_SIZE;
+            int nameOffset = buf.getInt(entry);
+            int nameLength = buf.getInt(entry + 4);
+            int dfaOffset = buf.getInt(entry + 8);
+            if (nameOffset < 0 || nameLength < 0 || nameOffset + 2L * nameLength > buf.capacity()
+                || dfaOffset < 0 || dfaOffset % 4 != 0 || dfaOffset + 12L > buf.capacity()) {
+                throw corrupt();
+            }
+        }
+    }
+
+    static IllegalArgumentException corrupt() {
+        return new IllegalArgumentException("corrupt matcher store");
+    }
+
+    /**
+     * 使用ByteBuffer中position到limit之间的字节，不复制数据
+     * @param buf 字节数据
+     * @throws IllegalArgumentException 不是MatcherStore的数据，或者文件头和条目超出了数据范围
+     */
+    public static MatcherStore of(ByteBuffer buf) {
+        return new MatcherStore(buf.slice().order(ByteOrder.BIG_ENDIAN));
+    }
+
+    /**
+     * 将文件以只读方式映射到内存
+     * @param file 文件路径
+     */
+    public static MatcherStore load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * 保存的Matcher个数
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 按名称排序的第i个Matcher的名称
+     * @param i 下标
+     */
+    public String name(int i) {
+        if (i < 0 || i >= count) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        int entry = HEADER_SIZE + i * ENTRY_SIZE;
+        char[] chars = new char[buf.getInt(entry + 4)];
+        for (int k = 0, offset = buf.getInt(entry); k < chars.length; k++) {
+            chars[k] = buf.getChar(offset + 2 * k);
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 按名称查找Matcher，在字节数据上二分查找，不建立索引
+     * @param name 名称
+     * @return 直接在字节数据上匹配的Matcher，不存在时为空
+     * @throws IllegalArgumentException DFA超出了数据范围或者转移表中有无效的状态和字符类
+     */
+    public Optional<Matcher> get(String name) {
+        int lo = 0, hi = count - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            int cmp = compareName(mid, name);
+            if (cmp == 0) {
+                int dfaOffset = buf.getInt(HEADER_SIZE + mid * ENTRY_SIZE + 8);
+                return Optional.of(new StoredDfaMatcher(buf, dfaOffset, name));
+            } else if (cmp < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 比较第i个名称与name，与String.compareTo的顺序相同
+     */
+    private int compareName(int i, String name) {
+        int entry = HEADER_SIZE + i * ENTRY_SIZE;
+        int offset = buf.getInt(entry);
+        int length = buf.getInt(entry + 4);
+        int n = Math.min(length, name.length());
+        for (int k = 0; k < n; k++) {
+            char c = buf.getChar(offset + 2 * k);
+            if (c != name.charAt(k)) {
+                return c - name.charAt(k);
+            }
+        }
+        return length - name.length();
+    }
+
+    /**
+     * 编译并保存多个Matcher
+     * @param matchers 名称到Matcher的映射，例如正则表达式到MatcherParser.parse的结果
+     * @param out 输出流
+     * @throws IllegalArgumentException 某个Matcher不属于正则子集、包含任意Predicate或DFA状态过多
+     */
+    public static void write(Map<String, ? extends Matcher> matchers, OutputStream out) throws IOException {
+        // 按名称排序，加载后可以二分查找
+        TreeMap<String, Matcher> sorted = new TreeMap<>(matchers);
+        List<byte[]> dfas = new ArrayList<>();
+        for (Map.Entry<String, Matcher> e : sorted.entrySet()) {
+            dfas.add(encode(e.getKey(), e.getValue()));
+        }
+
+        int nameOffset = HEADER_SIZE + sorted.size() * ENTRY_SIZE;
+        int dfaOffset = nameOffset;
+        for (String name : sorted.keySet()) {
+            dfaOffset += 2 * name.length();
+        }
+        dfaOffset = align(dfaOffset);
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(sorted.size());
+        int k = 0;
+        for (String name : sorted.keySet()) {
+            data.writeInt(nameOffset);
+            data.writeInt(name.length());
+            data.writeInt(dfaOffset);
+            nameOffset += 2 * name.length();
+            dfaOffset += align(dfas.get(k++).length);
+        }
+        for (String name : sorted.keySet()) {
+            data.writeChars(name);
+        }
+        pad(data, nameOffset);
+        for (byte[] dfa : dfas) {
+            data.write(dfa);
+            pad(data, dfa.length);
+        }
+        data.flush();
+    }
+
+    /**
+     * 编译并保存多个Matcher到文件
+     * @param matchers 名称到Matcher的映射
+     * @param file 文件路径
+     */
+    public static void save(Map<String, ? extends Matcher> matchers, Path file) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(matchers, out);
+        }
+    }
+
+    private static int align(int n) {
+        return (n + 3) & ~3;
+    }
+
+    private static void pad(DataOutputStream data, int n) throws IOException {
+        for (int i = n; i < align(n); i++) {
+            data.writeByte(0);
+        }
+    }
+
+    /**
+     * 将m完全展开成DFA并编码
+     */
+    private static byte[] encode(String name, Matcher m) throws IOException {
+        Matcher compiled = m instanceof DfaMatcher ? m : m.compile();
+        if (!(compiled instanceof DfaMatcher dfa)) {
+            throw new IllegalArgumentException("not in the regular subset: " + name);
+        }
+        GeneratedDfa.Expanded e = GeneratedDfa.expand(dfa.dfa);
+        if (e == null) {
+            throw new IllegalArgumentException("cannot expand DFA of " + name);
+        }
+
+        // 区间b上每个状态的目标状态加1，目标完全相同的区间属于同一个字符类
+        int[] bounds = e.bounds();
+        int stateCount = e.accept().length;
+        int intervals = bounds.length - 1;
+        int[][] columns = new int[intervals][stateCount];
+        for (int st = 0; st < stateCount; st++) {
+            int[] ranges = e.transitions().get(st);
+            for (int r = 0, b = 0; r < ranges.length; r += 3) {
+                while (bounds[b] < ranges[r]) {
+                    b++;
+                }
+                for (; b < intervals && bounds[b] <= ranges[r + 1]; b++) {
+                    columns[b][st] = ranges[r + 2] + 1;
+                }
+            }
+        }
+        Map<List<Integer>, Integer> classIds = new HashMap<>();
+        List<int[]> classes = new ArrayList<>();
+        int[] classOf = new int[intervals];
+        for (int b = 0; b < intervals; b++) {
+            int[] column = columns[b];
+            classOf[b] = classIds.computeIfAbsent(Arrays.stream(column).boxed().toList(), key -> {
+                classes.add(column);
+                return classes.size() - 1;
+            });
+        }
+
+        // 合并相邻的同类区间
+        List<Integer> rangeStarts = new ArrayList<>();
+        List<Integer> rangeClasses = new ArrayList<>();
+        for (int b = 0; b < intervals; b++) {
+            if (b == 0 || classOf[b] != classOf[b - 1]) {
+                rangeStarts.add(bounds[b]);
+                rangeClasses.add(classOf[b]);
+            }
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeInt(stateCount);
+        data.writeInt(classes.size());
+        data.writeInt(rangeStarts.size());
+        for (int c = 0, b = 0; c < 128; c++) {
+            while (bounds[b + 1] <= c) {
+                b++;
+            }
+            data.writeChar(classOf[b]);
+        }
+        for (int start : rangeStarts) {
+            data.writeChar(start);
+        }
+        for (int cls : rangeClasses) {
+            data.writeChar(cls);
+        }
+        for (boolean a : e.accept()) {
+            data.writeByte(a ? 1 : 0);
+        }
+        if (stateCount % 2 != 0) {
+            data.writeByte(0);
+        }
+        for (int st = 0; st < stateCount; st++) {
+            for (int[] column : classes) {
+                data.writeChar(column[st]);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return "MatcherStore(size=" + count + ", bytes=" + buf.capacity() + ")";
+    }
+}
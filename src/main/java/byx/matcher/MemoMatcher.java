@@ -0,0 +1,28 @@
+package byx.matcher;
+
+/**
+ * 在记忆化模式下缓存matcher在每个位置上的解析结果
+ */
+final class MemoMatcher implements Matcher {
+    final Matcher matcher;
+
+    MemoMatcher(Matcher matcher) {
+        this.matcher = matcher;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (ctx.stackDepth >= MatchContext.MAX_STACK_DEPTH) {
+            StackEngine.parse(this, s, index, result, ctx);
+            return;
+        }
+        ctx.stackDepth++;
+        ctx.memoParse(matcher, s, index, result);
+        ctx.stackDepth--;
+    }
+
+    @Override
+    public String toString() {
+        return "memo(" + matcher + ")";
+    }
+}
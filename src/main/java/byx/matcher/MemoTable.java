@@ -0,0 +1,127 @@
+package byx.matcher;
+
+import java.util.Arrays;
+
+/**
+ * 以(Matcher, 位置)为键的散列表，用于保存解析结果和正在展开的左递归
+ * Matcher按引用比较，使用开放寻址避免装箱
+ */
+final class MemoTable<V> {
+    private Matcher[] keys = new Matcher[16];
+    private int[] positions = new int[16];
+    private Object[] values = new Object[16];
+    private int size;
+
+    /**
+     * 查询
+     * @param m Matcher
+     * @param index 位置
+     * @return 保存的值，不存在时返回null
+     */
+    @SuppressWarnings("unchecked")
+    V get(Matcher m, int index) {
+        int mask = keys.length - 1;
+        for (int slot = hash(m, index) & mask; keys[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == m && positions[slot] == index) {
+                return (V) values[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 保存，已存在时覆盖
+     * @param m Matcher
+     * @param index 位置
+     * @param value 值
+     */
+    void put(Matcher m, int index, V value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = hash(m, index) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot] == m && positions[slot] == index) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = m;
+        positions[slot] = index;
+        values[slot] = value;
+        size++;
+    }
+
+    /**
+     * 删除，后续同一簇中的条目向前移动以填补空位
+     * @param m Matcher
+     * @param index 位置
+     */
+    void remove(Matcher m, int index) {
+        int mask = keys.length - 1;
+        int i = hash(m, index) & mask;
+        while (keys[i] != m || positions[i] != index) {
+            if (keys[i] == null) {
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = null;
+        values[i] = null;
+        size--;
+        for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+            // 理想位置k不在(i, j]中的条目移动到空位i
+            int k = hash(keys[j], positions[j]) & mask;
+            if (i <= j ? i < k && k <= j : i < k || k <= j) {
+                continue;
+            }
+            keys[i] = keys[j];
+            positions[i] = positions[j];
+            values[i] = values[j];
+            keys[j] = null;
+            values[j] = null;
+            i = j;
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, null);
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    private void resize(int capacity) {
+        Matcher[] oldKeys = keys;
+        int[] oldPositions = positions;
+        Object[] oldValues = values;
+        keys = new Matcher[capacity];
+        positions = new int[capacity];
+        values = new Object[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = hash(oldKeys[i], oldPositions[i]) & mask;
+                while (keys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                positions[slot] = oldPositions[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    private static int hash(Matcher m, int index) {
+        int h = System.identityHashCode(m) * 31 + index;
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,275 @@
+package byx.matcher;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Thompson NFA
+ * 由ch、str、and、or、repeat、many等组成的正则子集可以编译成NFA，lazy在编译期展开，memo被忽略
+ */
+final class Nfa {
+    /**
+     * 状态数上限，repeat展开后超过该值时放弃编译
+     */
+    static final int MAX_STATES = 10000;
+
+    static final int CHAR = 0;
+    static final int SPLIT = 1;
+    static final int EPSILON = 2;
+    static final int MATCH = 3;
+
+    final int[] types;
+
+    /**
+     * CHAR状态接受的字符集合，字符条件为任意Predicate时为null
+     */
+    final CharClass[] classes;
+
+    /**
+     * classes为null的CHAR状态使用的字符条件
+     */
+    final Predicate<Character>[] predicates;
+    final int[] out1;
+    final int[] out2;
+    final int start;
+
+    private Nfa(int[] types, CharClass[] classes, Predicate<Character>[] predicates, int[] out1, int[] out2, int start) {
+        this.types = types;
+        this.classes = classes;
+        this.predicates = predicates;
+        this.out1 = out1;
+        this.out2 = out2;
+        this.start = start;
+    }
+
+    int size() {
+        return types.length;
+    }
+
+    /**
+     * 判断CHAR状态st能否接受字符c
+     */
+    boolean test(int st, char c) {
+        CharClass cls = classes[st];
+        return cls != null ? cls.contains(c) : predicates[st].test(c);
+    }
+
+    /**
+     * 将Matcher编译成NFA
+     * @param m Matcher
+     * @return 编译结果，m不属于正则子集时返回null
+     */
+    static Nfa compile(Matcher m) {
+        Builder builder = new Builder();
+        try {
+            Frag frag = builder.compile(m);
+            int match = builder.add(MATCH, -1, -1);
+            builder.out1[frag.end] = match;
+            return builder.build(frag.start);
+        } catch (NotRegularException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 计算状态集合的epsilon闭包，闭包中只保留CHAR和MATCH状态
+     * @param states 状态集合
+     * @param count 状态个数
+     * @return 升序排列的闭包
+     */
+    int[] closure(int[] states, int count) {
+        boolean[] visited = new boolean[types.length];
+        int[] stack = new int[types.length];
+        int[] result = new int[types.length];
+        int top = 0, n = 0;
+        for (int i = 0; i < count; i++) {
+            if (!visited[states[i]]) {
+                visited[states[i]] = true;
+                stack[top++] = states[i];
+            }
+        }
+        while (top > 0) {
+            int st = stack[--top];
+            switch (types[st]) {
+                case CHAR, MATCH -> result[n++] = st;
+                case SPLIT -> {
+                    if (!visited[out2[st]]) {
+                        visited[out2[st]] = true;
+                        stack[top++] = out2[st];
+                    }
+                    if (!visited[out1[st]]) {
+                        visited[out1[st]] = true;
+                        stack[top++] = out1[st];
+                    }
+                }
+                default -> {
+                    if (!visited[out1[st]]) {
+                        visited[out1[st]] = true;
+                        stack[top++] = out1[st];
+                    }
+                }
+            }
+        }
+        int[] closure = Arrays.copyOf(result, n);
+        Arrays.sort(closure);
+        return closure;
+    }
+
+    private static class NotRegularException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NotRegularException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /**
+     * NFA片段，end为出边待连接的EPSILON状态
+     */
+    private record Frag(int start, int end) {
+    }
+
+    private static class Builder {
+        private int[] types = new int[16];
+        private CharClass[] classes = new CharClass[16];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        private Predicate<Character>[] predicates = new Predicate[16];
+        private int[] out1 = new int[16];
+        private int[] out2 = new int[16];
+        private int size;
+
+        /**
+         * 正在展开的lazy，用于检测递归定义
+         */
+        private final Map<Matcher, Boolean> expanding = new IdentityHashMap<>();
+
+        int add(int type, int o1, int o2) {
+            return add(type, null, null, o1, o2);
+        }
+
+        int add(int type, CharClass cls, Predicate<Character> predicate, int o1, int o2) {
+            if (size == MAX_STATES) {
+                throw new NotRegularException();
+            }
+            if (size == types.length) {
+                types = Arrays.copyOf(types, size * 2);
+                classes = Arrays.copyOf(classes, size * 2);
+                predicates = Arrays.copyOf(predicates, size * 2);
+                out1 = Arrays.copyOf(out1, size * 2);
+                out2 = Arrays.copyOf(out2, size * 2);
+            }
+            types[size] = type;
+            classes[size] = cls;
+            predicates[size] = predicate;
+            out1[size] = o1;
+            out2[size] = o2;
+            return size++;
+        }
+
+        Nfa build(int start) {
+            return new Nfa(Arrays.copyOf(types, size), Arrays.copyOf(classes, size), Arrays.copyOf(predicates, size),
+                Arrays.copyOf(out1, size), Arrays.copyOf(out2, size), start);
+        }
+
+        private Frag empty() {
+            int e = add(EPSILON, -1, -1);
+            return new Frag(e, e);
+        }
+
+        private Frag ch(CharClass cls, Predicate<Character> predicate) {
+            int end = add(EPSILON, -1, -1);
+            return new Frag(add(CHAR, cls, predicate, end, -1), end);
+        }
+
+        private Frag concat(Frag a, Frag b) {
+            out1[a.end] = b.start;
+            return new Frag(a.start, b.end);
+        }
+
+        Frag compile(Matcher m) {
+            if (m instanceof CharClassMatcher c) {
+                return ch(c.cls, null);
+            } else if (m instanceof CharMatcher c) {
+                return ch(null, c.predicate);
+            } else if (m instanceof StrMatcher str) {
+                Frag frag = empty();
+                for (int i = 0; i < str.str.length(); i++) {
+                    frag = concat(frag, ch(CharClass.of(str.str.charAt(i)), null));
+                }
+                return frag;
+            } else if (m instanceof AndMatcher and) {
+                return concat(compile(and.lhs), compile(and.rhs));
+            } else if (m instanceof OrMatcher or) {
+                Frag a = compile(or.lhs);
+                Frag b = compile(or.rhs);
+                int end = add(EPSILON, -1, -1);
+                out1[a.end] = end;
+                out1[b.end] = end;
+                return new Frag(add(SPLIT, a.start, b.start), end);
+            } else if (m instanceof RepeatMatcher r) {
+                return repeat(r);
+            } else if (m instanceof TrieMatcher t) {
+                return trie(t.trie, DoubleArrayTrie.ROOT);
+            } else if (m instanceof MemoMatcher memo) {
+                return compile(memo.matcher);
+            } else if (m instanceof CaptureMatcher c) {
+                return compile(c.matcher);
+            } else if (m instanceof ProfileMatcher p) {
+                return compile(p.matcher);
+            } else if (m instanceof DispatchMatcher d) {
+                return compile(d.source);
+            } else if (m instanceof LazyMatcher lazy) {
+                if (expanding.put(lazy, true) != null) {
+                    throw new NotRegularException();
+                }
+                Frag frag = compile(lazy.supplier.get());
+                expanding.remove(lazy);
+                return frag;
+            }
+            throw new NotRegularException();
+        }
+
+        /**
+         * 字典树的状态s对应的片段，共享前缀的字符串共享NFA状态
+         */
+        private Frag trie(DoubleArrayTrie trie, int s) {
+            int end = add(EPSILON, -1, -1);
+            int start = trie.isTerminal(s) ? end : -1;
+            for (int code = 1; code < trie.alphabet.length; code++) {
+                int t = trie.nextByCode(s, code);
+                if (t < 0) {
+                    continue;
+                }
+                Frag child = concat(ch(CharClass.of(trie.alphabet[code]), null), trie(trie, t));
+                out1[child.end] = end;
+                start = start < 0 ? child.start : add(SPLIT, start, child.start);
+            }
+            return new Frag(start, end);
+        }
+
+        private Frag repeat(RepeatMatcher r) {
+            Frag frag = empty();
+            for (int i = 0; i < r.minTimes; i++) {
+                frag = concat(frag, compile(r.matcher));
+            }
+            if (r.maxTimes == Integer.MAX_VALUE) {
+                // x*
+                Frag body = compile(r.matcher);
+                int end = add(EPSILON, -1, -1);
+                int split = add(SPLIT, body.start, end);
+                out1[body.end] = split;
+                frag = concat(frag, new Frag(split, end));
+            } else {
+                // x?x?...x?
+                for (int i = r.minTimes; i < r.maxTimes; i++) {
+                    Frag body = compile(r.matcher);
+                    int split = add(SPLIT, body.start, body.end);
+                    frag = concat(frag, new Frag(split, body.end));
+                }
+            }
+            return frag;
+        }
+    }
+}
@@ -0,0 +1,351 @@
+package byx.matcher;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 组合子树的代数化简
+ * 化简前后的解析结果完全相同，规则如下：
+ * <ul>
+ *     <li>and：展开嵌套的and，去掉空字符串，合并相邻的字符串和单个字符</li>
+ *     <li>or：展开嵌套的or，将字符集合和单个字符合并成一个字符集合，提取公共前缀（字符串集合因此变成字典树），oneOf化简后仍按当前字符分派</li>
+ *     <li>repeat：repeat(x, 1, 1)变成x，嵌套的repeat和many合并成一层</li>
+ * </ul>
+ * lazy的目标在解析时才确定，不会被化简；捕获组和profile标记的边界保持不变
+ */
+final class Optimizer {
+    private static final int INF = Integer.MAX_VALUE;
+
+    /**
+     * 分组时代表字符集合的位置
+     */
+    private static final Object CHARS = new Object();
+
+    /**
+     * 已化简的节点，保证共享的子树化简后仍然共享
+     */
+    private final Map<Matcher, Matcher> done = new IdentityHashMap<>();
+
+    private Optimizer() {
+    }
+
+    static Matcher optimize(Matcher m) {
+        return new Optimizer().rewrite(m);
+    }
+
+    private Matcher rewrite(Matcher m) {
+        Matcher r = done.get(m);
+        if (r == null) {
+            r = doRewrite(m);
+            done.put(m, r);
+        }
+        return r;
+    }
+
+    private Matcher doRewrite(Matcher m) {
+        if (m instanceof AndMatcher) {
+            return seq(factors(m));
+        } else if (m instanceof OrMatcher) {
+            List<Matcher> alternatives = new ArrayList<>();
+            flattenOr(m, alternatives);
+            return alt(alternatives);
+        } else if (m instanceof DispatchMatcher d) {
+            // 化简后仍有多个分支时保留分派
+            List<Matcher> alternatives = new ArrayList<>();
+            flattenOr(d.source, alternatives);
+            Matcher r = alt(alternatives);
+            if (!(r instanceof OrMatcher)) {
+                return r;
+            }
+            List<Matcher> result = new ArrayList<>();
+            for (Matcher t = r; ; t = ((OrMatcher) t).lhs) {
+                if (!(t instanceof OrMatcher or)) {
+                    result.add(0, t);
+                    break;
+                }
+                result.add(0, or.rhs);
+            }
+            return new DispatchMatcher(result);
+        } else if (m instanceof RepeatMatcher r) {
+            Matcher inner = rewrite(r.matcher);
+            Matcher result = repeat(inner, r.minTimes, r.maxTimes);
+            return result instanceof RepeatMatcher rr && rr.matcher == r.matcher
+                && rr.minTimes == r.minTimes && rr.maxTimes == r.maxTimes ? m : result;
+        } else if (m instanceof MemoMatcher memo) {
+            Matcher inner = rewrite(memo.matcher);
+            return inner == memo.matcher ? m : new MemoMatcher(inner);
+        } else if (m instanceof CaptureMatcher c) {
+            Matcher inner = rewrite(c.matcher);
+            return inner == c.matcher ? m : new CaptureMatcher(inner, c.group);
+        } else if (m instanceof FlatMapMatcher f) {
+            Matcher inner = rewrite(f.matcher);
+            return inner == f.matcher ? m : new FlatMapMatcher(inner, f.mapper);
+        } else if (m instanceof ProfileMatcher p) {
+            Matcher inner = rewrite(p.matcher);
+            return inner == p.matcher ? m : new ProfileMatcher(inner, p.name);
+        }
+        return m;
+    }
+
+    /**
+     * 展开并化简and的所有因子
+     */
+    private List<Matcher> factors(Matcher m) {
+        List<Matcher> result = new ArrayList<>();
+        if (m instanceof AndMatcher and) {
+            result.addAll(factors(and.lhs));
+            result.addAll(factors(and.rhs));
+        } else {
+            Matcher r = rewrite(m);
+            if (r instanceof AndMatcher) {
+                result.addAll(factors(r));
+            } else {
+                result.add(r);
+            }
+        }
+        return result;
+    }
+
+    private void flattenOr(Matcher m, List<Matcher> alternatives) {
+        if (m instanceof OrMatcher or) {
+            flattenOr(or.lhs, alternatives);
+            flattenOr(or.rhs, alternatives);
+        } else {
+            Matcher r = rewrite(m);
+            if (r instanceof OrMatcher) {
+                flattenOr(r, alternatives);
+            } else if (r instanceof DispatchMatcher d) {
+                flattenOr(d.source, alternatives);
+            } else {
+                alternatives.add(r);
+            }
+        }
+    }
+
+    /**
+     * 若m只匹配一个固定字符串，返回该字符串，否则返回null
+     */
+    private static String literal(Matcher m) {
+        if (m instanceof StrMatcher str) {
+            return str.str;
+        }
+        if (m instanceof CharClassMatcher c && c.cls.size() == 1) {
+            return String.valueOf(c.cls.rangeStart(0));
+        }
+        return null;
+    }
+
+    private static Matcher literalMatcher(String s) {
+        return s.length() == 1 ? new CharClassMatcher(CharClass.of(s.charAt(0))) : new StrMatcher(s);
+    }
+
+    /**
+     * 连接多个已化简的因子，合并相邻的字面量
+     */
+    private static Matcher seq(List<Matcher> factors) {
+        List<Matcher> merged = new ArrayList<>();
+        StringBuilder pending = new StringBuilder();
+        for (Matcher f : factors) {
+            String lit = literal(f);
+            if (lit != null) {
+                pending.append(lit);
+                continue;
+            }
+            if (!pending.isEmpty()) {
+                merged.add(literalMatcher(pending.toString()));
+                pending.setLength(0);
+            }
+            merged.add(f);
+        }
+        if (!pending.isEmpty() || merged.isEmpty()) {
+            merged.add(literalMatcher(pending.toString()));
+        }
+
+        Matcher m = merged.get(0);
+        for (int i = 1; i < merged.size(); i++) {
+            m = new AndMatcher(m, merged.get(i));
+        }
+        return m;
+    }
+
+    /**
+     * 连接多个已化简的分支，合并字符集合并提取公共前缀
+     * 调整分支顺序会改变捕获组的结果，因此含有捕获组的分支保持原位，只化简它们之间不含捕获组的连续分支
+     */
+    private Matcher alt(List<Matcher> alternatives) {
+        List<Matcher> result = new ArrayList<>();
+        int from = 0;
+        for (int i = 0; i <= alternatives.size(); i++) {
+            if (i == alternatives.size() || hasCapture(alternatives.get(i))) {
+                if (from < i) {
+                    unchain(plainAlt(alternatives.subList(from, i)), result);
+                }
+                if (i < alternatives.size()) {
+                    result.add(alternatives.get(i));
+                }
+                from = i + 1;
+            }
+        }
+        return chain(result);
+    }
+
+    /**
+     * 化简不含捕获组的分支，合并后的字符集合位于其第一个成员原来的位置
+     */
+    private Matcher plainAlt(List<Matcher> alternatives) {
+        // 按首个因子分组，首个因子是字面量时按首字符分组，否则按节点本身分组
+        Map<Object, List<List<Matcher>>> groups = new LinkedHashMap<>();
+        CharClass chars = CharClass.none();
+        for (Matcher a : alternatives) {
+            if (a instanceof CharClassMatcher c && c.cls.size() != 1) {
+                chars = chars.union(c.cls);
+                groups.putIfAbsent(CHARS, List.of());
+                continue;
+            }
+            List<Matcher> fs = a instanceof AndMatcher ? factors(a) : new ArrayList<>(List.of(a));
+            Matcher head = fs.get(0);
+            String lit = literal(head);
+            Object key = lit == null ? head : lit.isEmpty() ? "" : lit.charAt(0);
+            groups.computeIfAbsent(key, k -> new ArrayList<>()).add(fs);
+        }
+
+        List<Matcher> result = new ArrayList<>();
+        int charsAt = -1;
+        for (Map.Entry<Object, List<List<Matcher>>> e : groups.entrySet()) {
+            Object key = e.getKey();
+            List<List<Matcher>> members = e.getValue();
+            if (key == CHARS) {
+                charsAt = charsAt < 0 ? result.size() : charsAt;
+            } else if (members.size() == 1 && key instanceof Character c && members.get(0).size() == 1
+                && literal(members.get(0).get(0)).length() == 1) {
+                // 没有其他分支以该字符开头的单个字符并入字符集合
+                chars = chars.union(CharClass.of(c));
+                charsAt = charsAt < 0 ? result.size() : charsAt;
+            } else if (members.size() == 1 || key.equals("")) {
+                for (List<Matcher> fs : members) {
+                    result.add(seq(fs));
+                }
+            } else {
+                result.add(factorOut(key, members));
+            }
+        }
+        if (!chars.isEmpty() || result.isEmpty()) {
+            // 所有分支都是空字符集合时结果仍是空字符集合，什么都不匹配
+            result.add(Math.max(charsAt, 0), new CharClassMatcher(chars));
+        }
+        return chain(result);
+    }
+
+    private static Matcher chain(List<Matcher> alternatives) {
+        Matcher m = alternatives.get(0);
+        for (int i = 1; i < alternatives.size(); i++) {
+            m = new OrMatcher(m, alternatives.get(i));
+        }
+        return m;
+    }
+
+    /**
+     * 展开chain的结果，各分支已化简
+     */
+    private static void unchain(Matcher m, List<Matcher> alternatives) {
+        if (m instanceof OrMatcher or) {
+            unchain(or.lhs, alternatives);
+            unchain(or.rhs, alternatives);
+        } else {
+            alternatives.add(m);
+        }
+    }
+
+    /**
+     * m中是否含有捕获组，不进入lazy的目标
+     */
+    private static boolean hasCapture(Matcher m) {
+        if (m instanceof CaptureMatcher) {
+            return true;
+        } else if (m instanceof AndMatcher and) {
+            return hasCapture(and.lhs) || hasCapture(and.rhs);
+        } else if (m instanceof OrMatcher or) {
+            return hasCapture(or.lhs) || hasCapture(or.rhs);
+        } else if (m instanceof RepeatMatcher r) {
+            return hasCapture(r.matcher);
+        } else if (m instanceof MemoMatcher memo) {
+            return hasCapture(memo.matcher);
+        } else if (m instanceof ProfileMatcher p) {
+            return hasCapture(p.matcher);
+        } else if (m instanceof FlatMapMatcher f) {
+            return hasCapture(f.matcher);
+        } else if (m instanceof DispatchMatcher d) {
+            return hasCapture(d.source);
+        }
+        return false;
+    }
+
+    /**
+     * 将具有相同首个因子的分支改写成 公共前缀 and (剩余部分的or)
+     */
+    private Matcher factorOut(Object key, List<List<Matcher>> members) {
+        Matcher head;
+        List<Matcher> tails = new ArrayList<>();
+        if (key instanceof Character) {
+            String prefix = literal(members.get(0).get(0));
+            for (List<Matcher> fs : members) {
+                String lit = literal(fs.get(0));
+                int n = 0;
+                while (n < prefix.length() && n < lit.length() && prefix.charAt(n) == lit.charAt(n)) {
+                    n++;
+                }
+                prefix = prefix.substring(0, n);
+            }
+            head = literalMatcher(prefix);
+            for (List<Matcher> fs : members) {
+                List<Matcher> tail = new ArrayList<>(fs.subList(1, fs.size()));
+                tail.add(0, literalMatcher(literal(fs.get(0)).substring(prefix.length())));
+                tails.add(seq(tail));
+            }
+        } else {
+            head = (Matcher) key;
+            for (List<Matcher> fs : members) {
+                tails.add(seq(fs.subList(1, fs.size())));
+            }
+        }
+        List<Matcher> flat = new ArrayList<>();
+        for (Matcher t : tails) {
+            if (t instanceof OrMatcher) {
+                flattenOr(t, flat);
+            } else {
+                flat.add(t);
+            }
+        }
+        return seq(List.of(head, alt(flat)));
+    }
+
+    /**
+     * 化简repeat(inner, min, max)，inner已化简
+     */
+    private static Matcher repeat(Matcher inner, int min, int max) {
+        if (min == 0 && max == 0 || "".equals(literal(inner))) {
+            return new StrMatcher("");
+        }
+        if (min > max) {
+            // 解析时恰好应用minTimes次，不做其他改写
+            return new RepeatMatcher(inner, min, max);
+        }
+        if (min == 1 && max == 1) {
+            return inner;
+        }
+        if (inner instanceof RepeatMatcher r) {
+            if (r.maxTimes == INF && r.minTimes <= 1) {
+                // (x+){m,n} = x{m,}，(x*){m,n} = x*
+                return new RepeatMatcher(r.matcher, min * r.minTimes, INF);
+            }
+            if (r.minTimes == r.maxTimes && min == max && (long) min * r.minTimes < INF) {
+                // (x{k}){m} = x{km}
+                return new RepeatMatcher(r.matcher, min * r.minTimes, min * r.minTimes);
+            }
+        }
+        return new RepeatMatcher(inner, min, max);
+    }
+}
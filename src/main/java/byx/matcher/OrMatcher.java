@@ -0,0 +1,33 @@
+package byx.matcher;
+
+/**
+ * 使用or连接两个Matcher
+ */
+final class OrMatcher implements Matcher {
+    final Matcher lhs;
+    final Matcher rhs;
+
+    OrMatcher(Matcher lhs, Matcher rhs) {
+        this.lhs = lhs;
+        this.rhs = rhs;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (ctx.stackDepth >= MatchContext.MAX_STACK_DEPTH) {
+            StackEngine.parse(this, s, index, result, ctx);
+            return;
+        }
+        ctx.stackDepth++;
+        lhs.parse(s, index, result, ctx);
+        if (!result.reached) {
+            rhs.parse(s, index, result, ctx);
+        }
+        ctx.stackDepth--;
+    }
+
+    @Override
+    public String toString() {
+        return "(" + lhs + " | " + rhs + ")";
+    }
+}
@@ -0,0 +1,171 @@
+package byx.matcher;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * 以正则表达式为键的Matcher缓存，线程安全
+ * 同时限制条目个数和总权重（表达式长度之和），超出时按最近最少使用的顺序淘汰
+ * 多个线程同时请求同一个未缓存的表达式时只会构建一次，其余线程等待构建结果；构建失败的结果不会被缓存
+ */
+public final class PatternCache {
+    private final int maximumSize;
+    private final long maximumWeight;
+
+    /**
+     * 按访问顺序排列的条目，最久未使用的在前
+     */
+    private final LinkedHashMap<String, Matcher> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * 正在构建的表达式
+     */
+    private final Map<String, CompletableFuture<Matcher>> loading = new HashMap<>();
+
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * @param maximumSize 最多缓存的条目个数
+     * @param maximumWeight 所有缓存的表达式的长度之和的上限
+     */
+    public PatternCache(int maximumSize, long maximumWeight) {
+        if (maximumSize < 0 || maximumWeight < 0) {
+            throw new IllegalArgumentException("maximumSize and maximumWeight must be non-negative");
+        }
+        this.maximumSize = maximumSize;
+        this.maximumWeight = maximumWeight;
+    }
+
+    /**
+     * 获取expr对应的Matcher，未缓存时使用loader构建并缓存
+     * @param expr 正则表达式
+     * @param loader 构建Matcher的函数
+     * @return 缓存的或新构建的Matcher
+     */
+    public Matcher get(String expr, Function<String, Matcher> loader) {
+        CompletableFuture<Matcher> future, pending;
+        synchronized (this) {
+            Matcher m = entries.get(expr);
+            if (m != null) {
+                hitCount++;
+                return m;
+            }
+            pending = loading.get(expr);
+            if (pending == null) {
+                missCount++;
+                future = new CompletableFuture<>();
+                loading.put(expr, future);
+            } else {
+                hitCount++;
+                future = null;
+            }
+        }
+        if (pending != null) {
+            // 其他线程正在构建，等待其结果
+            return await(pending);
+        }
+
+        Matcher m;
+        try {
+            m = loader.apply(expr);
+        } catch (RuntimeException | Error e) {
+            synchronized (this) {
+                loading.remove(expr);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            loading.remove(expr);
+            put(expr, m);
+        }
+        future.complete(m);
+        return m;
+    }
+
+    private static Matcher await(CompletableFuture<Matcher> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            } else if (e.getCause() instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        }
+    }
+
+    private void put(String expr, Matcher m) {
+        if (expr.length() > maximumWeight || maximumSize == 0) {
+            return;
+        }
+        if (entries.put(expr, m) == null) {
+            weight += expr.length();
+        }
+        Iterator<String> it = entries.keySet().iterator();
+        while (entries.size() > maximumSize || weight > maximumWeight) {
+            String eldest = it.next();
+            it.remove();
+            weight -= eldest.length();
+            evictionCount++;
+        }
+    }
+
+    /**
+     * 清空缓存，正在进行的构建不受影响
+     */
+    public synchronized void invalidateAll() {
+        entries.clear();
+        weight = 0;
+    }
+
+    /**
+     * 当前缓存的条目个数
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * 当前缓存的表达式的长度之和
+     */
+    public synchronized long weight() {
+        return weight;
+    }
+
+    /**
+     * 无需构建就得到结果的请求次数，包括等待其他线程构建的请求
+     */
+    public synchronized long hitCount() {
+        return hitCount;
+    }
+
+    /**
+     * 需要构建的请求次数
+     */
+    public synchronized long missCount() {
+        return missCount;
+    }
+
+    /**
+     * 因超出大小或权重限制而被淘汰的条目个数
+     */
+    public synchronized long evictionCount() {
+        return evictionCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "PatternCache(size=" + entries.size() + ", weight=" + weight + ", hits=" + hitCount
+            + ", misses=" + missCount + ", evictions=" + evictionCount + ")";
+    }
+}
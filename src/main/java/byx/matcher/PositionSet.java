@@ -0,0 +1,237 @@
+package byx.matcher;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 解析位置集合
+ * 元素保存在int数组中并保持插入顺序，元素较多时额外维护一张开放寻址散列表用于去重，全程不装箱
+ */
+public final class PositionSet {
+    /**
+     * 元素个数不超过该值时直接线性查找
+     */
+    private static final int LINEAR_LIMIT = 8;
+
+    private int[] elems;
+    private int size;
+
+    /**
+     * 开放寻址散列表，槽中保存元素在elems中的下标加1，0表示空槽
+     */
+    private int[] table;
+
+    /**
+     * 目标位置，该位置被添加时reached置为true，-1表示没有目标
+     * match只关心输入末尾能否到达，直接向结果集合写入的组合子据此提前结束
+     */
+    int target = -1;
+    boolean reached;
+
+    public PositionSet() {
+        this(4);
+    }
+
+    public PositionSet(int capacity) {
+        elems = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * 创建包含指定位置的集合
+     * @param positions 位置
+     */
+    public static PositionSet of(int... positions) {
+        PositionSet set = new PositionSet(positions.length);
+        for (int p : positions) {
+            set.add(p);
+        }
+        return set;
+    }
+
+    /**
+     * 元素个数
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 是否为空
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 按插入顺序获取第i个元素
+     * @param i 下标
+     */
+    public int get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return elems[i];
+    }
+
+    /**
+     * 判断是否包含指定位置
+     * @param pos 位置
+     */
+    public boolean contains(int pos) {
+        if (table == null) {
+            for (int i = 0; i < size; i++) {
+                if (elems[i] == pos) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        int mask = table.length - 1;
+        for (int slot = hash(pos) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            if (elems[table[slot] - 1] == pos) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 添加位置
+     * @param pos 位置
+     * @return 集合是否发生变化
+     */
+    public boolean add(int pos) {
+        if (contains(pos)) {
+            return false;
+        }
+        if (size == elems.length) {
+            elems = Arrays.copyOf(elems, size * 2);
+        }
+        elems[size++] = pos;
+        if (pos == target) {
+            reached = true;
+        }
+        if (table != null) {
+            if (size * 2 > table.length) {
+                rehash(table.length * 2);
+            } else {
+                insert(size - 1);
+            }
+        } else if (size > LINEAR_LIMIT) {
+            rehash(Integer.highestOneBit(size) * 4);
+        }
+        return true;
+    }
+
+    /**
+     * 添加另一个集合中的所有位置
+     * @param other 另一个集合
+     */
+    public void addAll(PositionSet other) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.elems[i]);
+        }
+    }
+
+    /**
+     * 清空集合，保留已分配的空间
+     */
+    public void clear() {
+        if (table != null) {
+            if (size * 4 < table.length) {
+                // 元素远少于槽数时只清除占用的槽，探测时不能在空槽处停止，因为前面的槽可能已被清除
+                int mask = table.length - 1;
+                for (int i = 0; i < size; i++) {
+                    int slot = hash(elems[i]) & mask;
+                    while (table[slot] != i + 1) {
+                        slot = (slot + 1) & mask;
+                    }
+                    table[slot] = 0;
+                }
+            } else {
+                Arrays.fill(table, 0);
+            }
+        }
+        size = 0;
+        reached = false;
+    }
+
+    /**
+     * 已分配的元素空间和散列表空间中较大的一个
+     */
+    int capacity() {
+        return table == null ? elems.length : Math.max(elems.length, table.length);
+    }
+
+    /**
+     * 转换成装箱的Set
+     */
+    public Set<Integer> toSet() {
+        Set<Integer> set = new HashSet<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            set.add(elems[i]);
+        }
+        return set;
+    }
+
+    /**
+     * 转换成升序排列的数组
+     */
+    public int[] toSortedArray() {
+        int[] arr = Arrays.copyOf(elems, size);
+        Arrays.sort(arr);
+        return arr;
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        for (int i = 0; i < size; i++) {
+            insert(i);
+        }
+    }
+
+    private void insert(int i) {
+        int mask = table.length - 1;
+        int slot = hash(elems[i]) & mask;
+        while (table[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        table[slot] = i + 1;
+    }
+
+    private static int hash(int pos) {
+        int h = pos * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof PositionSet other) || other.size != size) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (!other.contains(elems[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int i = 0; i < size; i++) {
+            h += elems[i];
+        }
+        return h;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toSortedArray());
+    }
+}
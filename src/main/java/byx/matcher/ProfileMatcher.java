@@ -0,0 +1,45 @@
+package byx.matcher;
+
+/**
+ * 在MatchContext启用了Profiler时统计matcher的执行情况，否则直接解析matcher
+ */
+final class ProfileMatcher implements Matcher {
+    final Matcher matcher;
+    final String name;
+
+    ProfileMatcher(Matcher matcher, String name) {
+        this.matcher = matcher;
+        this.name = name;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        Profiler profiler = ctx.profiler;
+        if (profiler == null) {
+            matcher.parse(s, index, result, ctx);
+            return;
+        }
+        if (ctx.stackDepth >= MatchContext.MAX_STACK_DEPTH) {
+            StackEngine.parse(this, s, index, result, ctx);
+            return;
+        }
+        ctx.stackDepth++;
+        // 结果集合由兄弟节点共享，解析到单独的集合中才能统计本次调用返回的所有位置
+        PositionSet out = ctx.borrow();
+        out.target = result.target;
+        profiler.enter(name);
+        try {
+            matcher.parse(s, index, out, ctx);
+        } finally {
+            profiler.exit(out.size());
+        }
+        result.addAll(out);
+        ctx.release(out);
+        ctx.stackDepth--;
+    }
+
+    @Override
+    public String toString() {
+        return "profile(" + name + ", " + matcher + ")";
+    }
+}
@@ -0,0 +1,203 @@
+package byx.matcher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 统计profile标记的Matcher的执行情况：调用次数、返回的位置数、单次调用返回的最大位置数和耗时
+ * 通过MatchContext.setProfiler启用，未启用时profile标记只多一次判空
+ * 同一个Profiler不能被多个线程同时使用
+ */
+public final class Profiler {
+    /**
+     * 一个Matcher或调用树上一个节点的统计数据
+     */
+    public static final class Stats {
+        private final String name;
+        private final Map<String, Stats> children = new LinkedHashMap<>();
+        private long invocations;
+        private long positions;
+        private int maxSetSize;
+        private long nanos;
+        private long childNanos;
+
+        private Stats(String name) {
+            this.name = name;
+        }
+
+        public String name() {
+            return name;
+        }
+
+        /**
+         * 调用次数
+         */
+        public long invocations() {
+            return invocations;
+        }
+
+        /**
+         * 所有调用返回的位置数之和，其他节点已经返回过的位置同样计入
+         */
+        public long positions() {
+            return positions;
+        }
+
+        /**
+         * 单次调用返回的最大位置数
+         */
+        public int maxSetSize() {
+            return maxSetSize;
+        }
+
+        /**
+         * 累计耗时，包括子节点的耗时
+         */
+        public long nanos() {
+            return nanos;
+        }
+
+        /**
+         * 累计耗时，不包括被统计的子节点的耗时
+         */
+        public long selfNanos() {
+            return nanos - childNanos;
+        }
+
+        /**
+         * 调用树上的子节点，flat中的统计数据没有子节点
+         */
+        public List<Stats> children() {
+            return new ArrayList<>(children.values());
+        }
+
+        private Stats child(String name) {
+            return children.computeIfAbsent(name, Stats::new);
+        }
+
+        private void add(Stats other) {
+            invocations += other.invocations;
+            positions += other.positions;
+            maxSetSize = Math.max(maxSetSize, other.maxSetSize);
+            nanos += other.nanos;
+            childNanos += other.childNanos;
+        }
+    }
+
+    private final Stats root = new Stats("");
+
+    /**
+     * 当前的调用路径，path[0]为root
+     */
+    private Stats[] path = new Stats[16];
+    private long[] starts = new long[16];
+    private int depth;
+
+    public Profiler() {
+        path[0] = root;
+    }
+
+    /**
+     * 进入name对应的Matcher
+     */
+    void enter(String name) {
+        if (depth + 1 == path.length) {
+            path = Arrays.copyOf(path, path.length * 2);
+            starts = Arrays.copyOf(starts, starts.length * 2);
+        }
+        Stats stats = path[depth].child(name);
+        depth++;
+        path[depth] = stats;
+        starts[depth] = System.nanoTime();
+    }
+
+    /**
+     * 退出最近进入的Matcher
+     * @param returned 本次调用返回的位置数，包括结果集合中已有的位置
+     */
+    void exit(int returned) {
+        long elapsed = System.nanoTime() - starts[depth];
+        Stats stats = path[depth];
+        stats.invocations++;
+        stats.positions += returned;
+        stats.maxSetSize = Math.max(stats.maxSetSize, returned);
+        stats.nanos += elapsed;
+        path[depth--] = null;
+        path[depth].childNanos += elapsed;
+    }
+
+    /**
+     * 按调用路径汇总的统计数据，递归调用会形成更深的路径
+     * @return 顶层节点
+     */
+    public List<Stats> tree() {
+        return root.children();
+    }
+
+    /**
+     * 按名称汇总的统计数据，按耗时从大到小排列
+     * 递归调用的耗时会被重复计入nanos，selfNanos不受影响
+     */
+    public List<Stats> flat() {
+        Map<String, Stats> byName = new LinkedHashMap<>();
+        collect(root, byName);
+        List<Stats> result = new ArrayList<>(byName.values());
+        result.sort(Comparator.comparingLong(Stats::nanos).reversed());
+        return result;
+    }
+
+    private static void collect(Stats node, Map<String, Stats> byName) {
+        for (Stats child : node.children.values()) {
+            byName.computeIfAbsent(child.name, Stats::new).add(child);
+            collect(child, byName);
+        }
+    }
+
+    /**
+     * 清空统计数据
+     */
+    public void clear() {
+        root.children.clear();
+        root.childNanos = 0;
+        Arrays.fill(path, 1, path.length, null);
+        depth = 0;
+    }
+
+    /**
+     * 以表格形式输出flat()
+     */
+    public String flatReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-24s %12s %12s %8s %12s %12s%n", "name", "calls", "positions", "max", "total(us)", "self(us)"));
+        for (Stats s : flat()) {
+            appendRow(sb, s.name, s);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 以缩进的形式输出tree()
+     */
+    public String treeReport() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-24s %12s %12s %8s %12s %12s%n", "name", "calls", "positions", "max", "total(us)", "self(us)"));
+        appendTree(sb, root, 0);
+        return sb.toString();
+    }
+
+    private static void appendTree(StringBuilder sb, Stats node, int level) {
+        for (Stats child : node.children.values()) {
+            appendRow(sb, "  ".repeat(level) + child.name, child);
+            appendTree(sb, child, level + 1);
+        }
+    }
+
+    private static void appendRow(StringBuilder sb, String label, Stats s) {
+        sb.append(String.format("%-24s %12d %12d %8d %12d %12d%n", label, s.invocations, s.positions,
+            s.maxSetSize, s.nanos / 1000, s.selfNanos() / 1000));
+    }
+}
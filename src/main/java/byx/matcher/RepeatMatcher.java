@@ -0,0 +1,106 @@
+package byx.matcher;
+
+/**
+ * 将一个Matcher连续应用多次，最少应用minTimes次，最多应用maxTimes次
+ * maxTimes为Integer.MAX_VALUE时表示不限制次数
+ */
+final class RepeatMatcher implements Matcher {
+    final Matcher matcher;
+    final int minTimes;
+    final int maxTimes;
+
+    RepeatMatcher(Matcher matcher, int minTimes, int maxTimes) {
+        this.matcher = matcher;
+        this.minTimes = minTimes;
+        this.maxTimes = maxTimes;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        if (ctx.stackDepth >= MatchContext.MAX_STACK_DEPTH) {
+            StackEngine.parse(this, s, index, result, ctx);
+            return;
+        }
+        ctx.stackDepth++;
+        doParse(s, index, result, ctx);
+        ctx.stackDepth--;
+    }
+
+    private void doParse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        // 应用minTimes次，cur和next两个集合交替使用
+        PositionSet cur = ctx.borrow();
+        PositionSet next = ctx.borrow();
+        cur.add(index);
+        for (int i = 0; i < minTimes; i++) {
+            next.clear();
+            for (int j = 0; j < cur.size(); j++) {
+                ctx.step();
+                matcher.parse(s, cur.get(j), next, ctx);
+            }
+            ctx.checkPositions(next.size());
+            if (next.isEmpty()) {
+                ctx.release(next);
+                ctx.release(cur);
+                return;
+            }
+            if (next.equals(cur)) {
+                // 到达不动点，之后每次应用的结果都相同
+                break;
+            }
+            PositionSet t = cur;
+            cur = next;
+            next = t;
+        }
+
+        // visited中的位置最终都会进入result，因此继承result的目标位置
+        PositionSet visited = ctx.borrow();
+        visited.target = result.target;
+        visited.addAll(cur);
+        if (maxTimes == Integer.MAX_VALUE) {
+            // visited按插入顺序遍历，同时充当广度优先搜索的队列
+            for (int i = 0; i < visited.size() && !visited.reached; i++) {
+                ctx.step();
+                next.clear();
+                matcher.parse(s, visited.get(i), next, ctx);
+                visited.addAll(next);
+                ctx.checkPositions(visited.size());
+            }
+        } else {
+            // 继续应用直到maxTimes次，只从上一轮新出现的位置出发
+            PositionSet step = ctx.borrow();
+            int times = minTimes;
+            while (!cur.isEmpty() && times < maxTimes && !visited.reached) {
+                step.clear();
+                for (int j = 0; j < cur.size(); j++) {
+                    ctx.step();
+                    matcher.parse(s, cur.get(j), step, ctx);
+                }
+                next.clear();
+                for (int j = 0; j < step.size(); j++) {
+                    if (visited.add(step.get(j))) {
+                        next.add(step.get(j));
+                    }
+                }
+                ctx.checkPositions(visited.size());
+                PositionSet t = cur;
+                cur = next;
+                next = t;
+                times++;
+            }
+            ctx.release(step);
+        }
+
+        result.addAll(visited);
+        ctx.release(visited);
+        ctx.release(next);
+        ctx.release(cur);
+    }
+
+    @Override
+    public String toString() {
+        if (maxTimes == Integer.MAX_VALUE) {
+            return matcher + (minTimes == 0 ? "*" : minTimes == 1 ? "+" : "{" + minTimes + ",}");
+        }
+        return matcher + (minTimes == maxTimes ? "{" + minTimes + "}" : "{" + minTimes + "," + maxTimes + "}");
+    }
+}
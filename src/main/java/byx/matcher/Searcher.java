@@ -0,0 +1,256 @@
+package byx.matcher;
+
+import java.util.Arrays;
+
+/**
+ * 在文本中查找Matcher的匹配，返回最左边的起始位置以及该位置上最长的匹配
+ * 属于正则子集的Matcher在NFA上一次扫描同时跟踪所有起始位置；其余Matcher逐个位置尝试解析
+ * 两种方式都会利用Matcher必须以之开头的字面量前缀跳过不可能匹配的位置
+ */
+final class Searcher {
+    private final Matcher matcher;
+    private final Nfa nfa;
+    private final String prefix;
+
+    /**
+     * Matcher为字符串集合时使用AC自动机查找
+     */
+    private final AhoCorasick automaton;
+
+    /**
+     * Horspool坏字符表，以字符的低8位为下标
+     */
+    private final int[] shift;
+
+    Searcher(Matcher matcher, Nfa nfa) {
+        this.matcher = matcher;
+        this.nfa = nfa;
+        StringBuilder sb = new StringBuilder();
+        appendPrefix(matcher, sb);
+        this.prefix = sb.toString();
+        this.automaton = trieOf(matcher) instanceof TrieMatcher t ? t.automaton() : null;
+        this.shift = new int[256];
+        Arrays.fill(shift, Math.max(prefix.length(), 1));
+        for (int i = 0; i < prefix.length() - 1; i++) {
+            shift[prefix.charAt(i) & 0xFF] = prefix.length() - 1 - i;
+        }
+    }
+
+    /**
+     * 为Matcher创建Searcher，DfaMatcher会缓存其Searcher
+     */
+    static Searcher of(Matcher m) {
+        if (m instanceof DfaMatcher d) {
+            return d.searcher();
+        }
+        return new Searcher(m, Nfa.compile(m));
+    }
+
+    private static Matcher trieOf(Matcher m) {
+        if (m instanceof MemoMatcher memo) {
+            return trieOf(memo.matcher);
+        } else if (m instanceof DfaMatcher dfa) {
+            return trieOf(dfa.source);
+        }
+        return m;
+    }
+
+    /**
+     * 将m的字面量前缀追加到sb
+     * @return m是否完全由字面量组成，为true时后续Matcher的前缀可以继续追加
+     */
+    private static boolean appendPrefix(Matcher m, StringBuilder sb) {
+        if (m instanceof StrMatcher str) {
+            sb.append(str.str);
+            return true;
+        } else if (m instanceof CharClassMatcher c) {
+            if (c.cls.rangeCount() == 1 && c.cls.size() == 1) {
+                sb.append(c.cls.rangeStart(0));
+                return true;
+            }
+            return false;
+        } else if (m instanceof AndMatcher and) {
+            return appendPrefix(and.lhs, sb) && appendPrefix(and.rhs, sb);
+        } else if (m instanceof MemoMatcher memo) {
+            return appendPrefix(memo.matcher, sb);
+        } else if (m instanceof CaptureMatcher c) {
+            return appendPrefix(c.matcher, sb);
+        } else if (m instanceof ProfileMatcher p) {
+            return appendPrefix(p.matcher, sb);
+        } else if (m instanceof DfaMatcher dfa) {
+            return appendPrefix(dfa.source, sb);
+        } else if (m instanceof RepeatMatcher r) {
+            if (r.minTimes > 0) {
+                appendPrefix(r.matcher, sb);
+            }
+            return false;
+        }
+        return false;
+    }
+
+    /**
+     * 从from开始查找第一个匹配
+     * @return 匹配结果，找不到时返回null
+     */
+    MatchResult find(CharSequence s, int from) {
+        if (automaton != null) {
+            return automaton.find(s, from);
+        }
+        return nfa != null ? findByNfa(s, from) : findByParse(s, from);
+    }
+
+    /**
+     * 使用Horspool算法查找前缀，前缀为空时直接返回from
+     */
+    private int skip(CharSequence s, int from) {
+        int m = prefix.length();
+        if (m == 0) {
+            return from;
+        }
+        char last = prefix.charAt(m - 1);
+        int i = from + m - 1;
+        while (i < s.length()) {
+            char c = s.charAt(i);
+            if (c == last) {
+                int j = m - 2, k = i - 1;
+                while (j >= 0 && s.charAt(k) == prefix.charAt(j)) {
+                    j--;
+                    k--;
+                }
+                if (j < 0) {
+                    return i - m + 1;
+                }
+            }
+            i += m == 1 ? 1 : shift[c & 0xFF];
+        }
+        return -1;
+    }
+
+    private MatchResult findByParse(CharSequence s, int from) {
+        MatchContext ctx = new MatchContext();
+        PositionSet result = new PositionSet();
+        for (int i = from; i <= s.length(); i++) {
+            i = skip(s, i);
+            if (i < 0) {
+                return null;
+            }
+            result.clear();
+            matcher.parse(s, i, result, ctx);
+            if (!result.isEmpty()) {
+                int end = i;
+                for (int j = 0; j < result.size(); j++) {
+                    end = Math.max(end, result.get(j));
+                }
+                return new MatchResult(matcher, s, i, end);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * NFA上的线程列表，按起始位置非递减排列，每个状态只保留起始位置最小的线程
+     */
+    private static final class ThreadList {
+        final int[] states;
+        final int[] starts;
+        final int[] marks;
+        int size;
+        int generation;
+
+        ThreadList(int n) {
+            states = new int[n];
+            starts = new int[n];
+            marks = new int[n];
+        }
+
+        void clear() {
+            size = 0;
+            generation++;
+        }
+    }
+
+    private MatchResult findByNfa(CharSequence s, int from) {
+        int n = nfa.size();
+        ThreadList clist = new ThreadList(n), nlist = new ThreadList(n);
+        clist.clear();
+        nlist.clear();
+        int[] stack = new int[2 * n + 1];
+        int matchStart = -1, matchEnd = -1;
+
+        for (int i = from; ; i++) {
+            if (matchStart < 0) {
+                if (clist.size == 0) {
+                    i = skip(s, i);
+                    if (i < 0) {
+                        return null;
+                    }
+                }
+                addThread(clist, nfa.start, i, stack);
+            }
+
+            // 检查接受状态，列表有序，第一个MATCH线程的起始位置最小
+            for (int k = 0; k < clist.size; k++) {
+                if (nfa.types[clist.states[k]] == Nfa.MATCH) {
+                    int start = clist.starts[k];
+                    if (matchStart < 0 || start <= matchStart) {
+                        matchStart = start;
+                        matchEnd = i;
+                    }
+                    break;
+                }
+            }
+
+            if (i == s.length()) {
+                break;
+            }
+
+            char c = s.charAt(i);
+            nlist.clear();
+            for (int k = 0; k < clist.size; k++) {
+                int st = clist.states[k];
+                int start = clist.starts[k];
+                if (matchStart >= 0 && start > matchStart) {
+                    break;
+                }
+                if (nfa.types[st] == Nfa.CHAR && nfa.test(st, c)) {
+                    addThread(nlist, nfa.out1[st], start, stack);
+                }
+            }
+            ThreadList t = clist;
+            clist = nlist;
+            nlist = t;
+
+            if (clist.size == 0 && matchStart >= 0) {
+                break;
+            }
+        }
+        return matchStart < 0 ? null : new MatchResult(matcher, s, matchStart, matchEnd);
+    }
+
+    /**
+     * 将state的epsilon闭包中的CHAR和MATCH状态加入列表
+     */
+    private void addThread(ThreadList list, int state, int start, int[] stack) {
+        int top = 0;
+        stack[top++] = state;
+        while (top > 0) {
+            int st = stack[--top];
+            if (list.marks[st] == list.generation) {
+                continue;
+            }
+            list.marks[st] = list.generation;
+            switch (nfa.types[st]) {
+                case Nfa.CHAR, Nfa.MATCH -> {
+                    list.states[list.size] = st;
+                    list.starts[list.size] = start;
+                    list.size++;
+                }
+                case Nfa.SPLIT -> {
+                    stack[top++] = nfa.out2[st];
+                    stack[top++] = nfa.out1[st];
+                }
+                default -> stack[top++] = nfa.out1[st];
+            }
+        }
+    }
+}
@@ -0,0 +1,284 @@
+package byx.matcher;
+
+/**
+ * 使用堆上的显式栈解析组合子，栈深度与输入的嵌套层数无关
+ * 组合子在Java调用栈上嵌套超过MatchContext.MAX_STACK_DEPTH层后改由StackEngine继续解析，浅层输入仍然直接递归
+ * 每个栈帧保存一个正在解析的组合子及其执行到的阶段，子组合子的结果直接写入栈帧指定的集合
+ */
+final class StackEngine {
+    private static final class Frame {
+        Matcher node;
+        int index;
+        PositionSet out;
+
+        /**
+         * 执行阶段，0表示刚进入
+         */
+        int pc;
+        int i;
+        int times;
+        PositionSet a;
+        PositionSet b;
+        PositionSet c;
+        PositionSet d;
+        MatchContext.Head head;
+
+        void set(Matcher node, int index, PositionSet out) {
+            this.node = node;
+            this.index = index;
+            this.out = out;
+            pc = 0;
+            i = 0;
+            times = 0;
+            a = b = c = d = null;
+            head = null;
+        }
+    }
+
+    private final CharSequence s;
+    private final MatchContext ctx;
+    private Frame[] stack = new Frame[64];
+    private int top;
+
+    private StackEngine(CharSequence s, MatchContext ctx) {
+        this.s = s;
+        this.ctx = ctx;
+    }
+
+    /**
+     * 解析字符串，将解析后的索引添加到result中
+     */
+    static void parse(Matcher m, CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        new StackEngine(s, ctx).run(m, index, result);
+    }
+
+    private void push(Matcher node, int index, PositionSet out) {
+        if (top == stack.length) {
+            Frame[] bigger = new Frame[top * 2];
+            System.arraycopy(stack, 0, bigger, 0, top);
+            stack = bigger;
+        }
+        if (stack[top] == null) {
+            stack[top] = new Frame();
+        }
+        stack[top++].set(node, index, out);
+    }
+
+    private void run(Matcher m, int index, PositionSet result) {
+        push(m, index, result);
+        try {
+            while (top > 0) {
+                step(stack[top - 1]);
+            }
+        } finally {
+            // 异常退出时撤销尚未完成的记忆化解析，并结束尚未完成的统计
+            for (int k = top - 1; k >= 0; k--) {
+                if (stack[k].head != null) {
+                    ctx.memoAbort(stack[k].head);
+                }
+                if (stack[k].node instanceof ProfileMatcher && stack[k].pc == 1 && ctx.profiler != null) {
+                    ctx.profiler.exit(stack[k].a.size());
+                }
+            }
+        }
+    }
+
+    /**
+     * 执行栈顶帧的一个阶段，可能压入子帧或弹出当前帧
+     */
+    private void step(Frame f) {
+        Matcher m = f.node;
+        if (m instanceof AndMatcher and) {
+            if (f.pc == 0) {
+                f.pc = 1;
+                f.a = new PositionSet();
+                push(and.lhs, f.index, f.a);
+            } else if (f.i < f.a.size() && !f.out.reached) {
+                if (f.i == 0) {
+                    ctx.checkPositions(f.a.size());
+                }
+                ctx.step();
+                push(and.rhs, f.a.get(f.i++), f.out);
+            } else {
+                top--;
+            }
+        } else if (m instanceof OrMatcher or) {
+            if (f.pc == 0) {
+                f.pc = 1;
+                push(or.lhs, f.index, f.out);
+            } else if (!f.out.reached) {
+                // 尾调用：当前帧直接换成rhs
+                f.set(or.rhs, f.index, f.out);
+            } else {
+                top--;
+            }
+        } else if (m instanceof DispatchMatcher d) {
+            // f.i为下一个待检查的分支
+            DispatchMatcher.Table t = d.table();
+            while (f.i < d.alternatives.length && !t.accepts(f.i, s, f.index)) {
+                f.i++;
+            }
+            if (f.i < d.alternatives.length && !f.out.reached) {
+                push(d.alternatives[f.i++], f.index, f.out);
+            } else {
+                top--;
+            }
+        } else if (m instanceof LazyMatcher lazy) {
+            f.set(lazy.supplier.get(), f.index, f.out);
+        } else if (m instanceof CaptureMatcher c) {
+            f.set(c.matcher, f.index, f.out);
+        } else if (m instanceof ProfileMatcher p && ctx.profiler != null) {
+            if (f.pc == 0) {
+                f.pc = 1;
+                f.a = ctx.borrow();
+                f.a.target = f.out.target;
+                ctx.profiler.enter(p.name);
+                push(p.matcher, f.index, f.a);
+            } else {
+                ctx.profiler.exit(f.a.size());
+                f.out.addAll(f.a);
+                ctx.release(f.a);
+                top--;
+            }
+        } else if (m instanceof ProfileMatcher p) {
+            f.set(p.matcher, f.index, f.out);
+        } else if (m instanceof MemoMatcher memo) {
+            if (f.pc == 0) {
+                f.head = ctx.memoBegin(memo.matcher, s, f.index, f.out);
+                if (f.head == null) {
+                    top--;
+                    return;
+                }
+                f.pc = 1;
+                f.a = ctx.borrow();
+                push(memo.matcher, f.index, f.a);
+            } else if (ctx.memoStep(f.head, f.a)) {
+                f.a = ctx.borrow();
+                push(memo.matcher, f.index, f.a);
+            } else {
+                ctx.memoEnd(f.head, f.out);
+                f.head = null;
+                top--;
+            }
+        } else if (m instanceof RepeatMatcher r) {
+            repeat(f, r);
+        } else if (m instanceof FlatMapMatcher fm) {
+            if (f.pc == 0) {
+                f.pc = 1;
+                f.a = new PositionSet();
+                push(fm.matcher, f.index, f.a);
+            } else if (f.i < f.a.size() && !f.out.reached) {
+                if (f.i == 0) {
+                    ctx.checkPositions(f.a.size());
+                }
+                ctx.step();
+                int end = f.a.get(f.i++);
+                push(fm.mapper.apply(SubSequence.of(s, f.index, end)), end, f.out);
+            } else {
+                top--;
+            }
+        } else {
+            // 其余Matcher不会递归解析组合子
+            top--;
+            m.parse(s, f.index, f.out, ctx);
+        }
+    }
+
+    /**
+     * 与RepeatMatcher.parse的过程相同
+     * a为当前的位置集合，b为下一轮的位置集合，c为visited，d为有上限时每一轮的解析结果
+     */
+    private void repeat(Frame f, RepeatMatcher r) {
+        switch (f.pc) {
+            case 0 -> {
+                f.a = PositionSet.of(f.index);
+                f.b = new PositionSet();
+                f.pc = 1;
+            }
+            case 1 -> {
+                // 应用minTimes次
+                if (f.times < r.minTimes && f.i < f.a.size()) {
+                    ctx.step();
+                    push(r.matcher, f.a.get(f.i++), f.b);
+                    return;
+                }
+                if (f.times < r.minTimes) {
+                    ctx.checkPositions(f.b.size());
+                    if (f.b.isEmpty()) {
+                        top--;
+                        return;
+                    }
+                    if (!f.b.equals(f.a)) {
+                        PositionSet t = f.a;
+                        f.a = f.b;
+                        f.b = t;
+                        f.b.clear();
+                        f.times++;
+                        f.i = 0;
+                        return;
+                    }
+                }
+                f.c = new PositionSet();
+                f.c.target = f.out.target;
+                f.c.addAll(f.a);
+                f.times = r.minTimes;
+                f.i = 0;
+                f.pc = r.maxTimes == Integer.MAX_VALUE ? 2 : 4;
+            }
+            case 2 -> {
+                // 广度优先搜索
+                if (f.i < f.c.size() && !f.c.reached) {
+                    ctx.step();
+                    f.b.clear();
+                    push(r.matcher, f.c.get(f.i), f.b);
+                    f.pc = 3;
+                } else {
+                    f.pc = 6;
+                }
+            }
+            case 3 -> {
+                f.c.addAll(f.b);
+                ctx.checkPositions(f.c.size());
+                f.i++;
+                f.pc = 2;
+            }
+            case 4 -> {
+                // 继续应用直到maxTimes次
+                if (f.a.isEmpty() || f.times >= r.maxTimes || f.c.reached) {
+                    f.pc = 6;
+                    return;
+                }
+                if (f.d == null) {
+                    f.d = new PositionSet();
+                } else {
+                    f.d.clear();
+                }
+                f.i = 0;
+                f.pc = 5;
+            }
+            case 5 -> {
+                if (f.i < f.a.size()) {
+                    ctx.step();
+                    push(r.matcher, f.a.get(f.i++), f.d);
+                    return;
+                }
+                f.b.clear();
+                for (int j = 0; j < f.d.size(); j++) {
+                    if (f.c.add(f.d.get(j))) {
+                        f.b.add(f.d.get(j));
+                    }
+                }
+                ctx.checkPositions(f.c.size());
+                PositionSet t = f.a;
+                f.a = f.b;
+                f.b = t;
+                f.times++;
+                f.pc = 4;
+            }
+            default -> {
+                f.out.addAll(f.c);
+                top--;
+            }
+        }
+    }
+}
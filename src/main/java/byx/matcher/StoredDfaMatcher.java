@@ -0,0 +1,176 @@
+package byx.matcher;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 直接在MatcherStore的字节数据上运行的DFA，不复制也不解析转移表，创建时检查一遍数据范围
+ * 解析结果与保存前的Matcher相同，可以被多个线程同时使用
+ */
+final class StoredDfaMatcher implements Matcher {
+    private final ByteBuffer buf;
+    private final String name;
+    private final int stateCount;
+    private final int classCount;
+    private final int rangeCount;
+
+    /**
+     * 各部分在buf中的偏移，布局见MatcherStore
+     */
+    private final int ascii;
+    private final int rangeStarts;
+    private final int rangeClasses;
+    private final int accept;
+    private final int table;
+
+    StoredDfaMatcher(ByteBuffer buf, int offset, String name) {
+        this.buf = buf;
+        this.name = name;
+        this.stateCount = buf.getInt(offset);
+        this.classCount = buf.getInt(offset + 4);
+        this.rangeCount = buf.getInt(offset + 8);
+        this.ascii = offset + 12;
+        this.rangeStarts = ascii + 2 * 128;
+        this.rangeClasses = rangeStarts + 2 * rangeCount;
+        this.accept = rangeClasses + 2 * rangeCount;
+        this.table = accept + (stateCount + 1) / 2 * 2;
+        validate(offset);
+    }
+
+    /**
+     * 检查各部分都在buf中，且转移表只引用存在的状态和字符类，之后匹配时不再检查
+     */
+    private void validate(int offset) {
+        if (stateCount <= 0 || classCount <= 0 || rangeCount <= 0 || rangeCount > 0x10000
+            || offset + 12L + 2 * 128 + 4L * rangeCount + (stateCount + 1L) / 2 * 2 + 2L * stateCount * classCount > buf.capacity()) {
+            throw MatcherStore.corrupt();
+        }
+        for (int c = 0; c < 128; c++) {
+            if (buf.getChar(ascii + 2 * c) >= classCount) {
+                throw MatcherStore.corrupt();
+            }
+        }
+        // 区间起点从0开始严格递增
+        for (int r = 0, prev = -1; r < rangeCount; r++) {
+            int start = buf.getChar(rangeStarts + 2 * r);
+            if ((r == 0 ? start != 0 : start <= prev) || buf.getChar(rangeClasses + 2 * r) >= classCount) {
+                throw MatcherStore.corrupt();
+            }
+            prev = start;
+        }
+        for (int k = 0; k < stateCount * classCount; k++) {
+            if (buf.getChar(table + 2 * k) > stateCount) {
+                throw MatcherStore.corrupt();
+            }
+        }
+    }
+
+    /**
+     * 字符c所属的字符类
+     */
+    private int classOf(char c) {
+        if (c < 128) {
+            return buf.getChar(ascii + 2 * c);
+        }
+        // 最后一个起点不大于c的区间
+        int lo = 0, hi = rangeCount - 1;
+        while (lo < hi) {
+            int mid = (lo + hi + 1) >>> 1;
+            if (buf.getChar(rangeStarts + 2 * mid) <= c) {
+                lo = mid;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return buf.getChar(rangeClasses + 2 * lo);
+    }
+
+    /**
+     * 状态state读入字符c后转移到的状态，死状态为-1
+     */
+    private int next(int state, char c) {
+        return buf.getChar(table + 2 * (state * classCount + classOf(c))) - 1;
+    }
+
+    private boolean isAccept(int state) {
+        return buf.get(accept + state) != 0;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        int st = 0;
+        if (isAccept(st)) {
+            result.add(index);
+        }
+        for (int i = index; i < s.length() && !result.reached; i++) {
+            st = next(st, s.charAt(i));
+            if (st < 0) {
+                ctx.reach(i);
+                return;
+            }
+            if (isAccept(st)) {
+                result.add(i + 1);
+            }
+        }
+        ctx.reach(s.length());
+    }
+
+    @Override
+    public boolean match(CharSequence s, MatchContext ctx) {
+        ctx.reset();
+        int st = 0;
+        for (int i = 0; i < s.length(); i++) {
+            st = next(st, s.charAt(i));
+            if (st < 0) {
+                ctx.reach(i);
+                return false;
+            }
+        }
+        ctx.reach(s.length());
+        return isAccept(st);
+    }
+
+    /**
+     * 能否匹配空串
+     */
+    boolean nullable() {
+        return isAccept(0);
+    }
+
+    /**
+     * 从初始状态出发能够读入的字符
+     */
+    CharClass first() {
+        return chars(0, 1);
+    }
+
+    /**
+     * 所有状态上能够读入的字符
+     */
+    CharClass chars() {
+        return chars(0, stateCount);
+    }
+
+    /**
+     * 状态[from, to)上至少有一个不进入死状态的转移的字符
+     */
+    private CharClass chars(int from, int to) {
+        CharClass result = CharClass.none();
+        for (int r = 0; r < rangeCount; r++) {
+            int cls = buf.getChar(rangeClasses + 2 * r);
+            for (int st = from; st < to; st++) {
+                if (buf.getChar(table + 2 * (st * classCount + cls)) != 0) {
+                    char start = buf.getChar(rangeStarts + 2 * r);
+                    char end = r + 1 < rangeCount ? (char) (buf.getChar(rangeStarts + 2 * (r + 1)) - 1) : Character.MAX_VALUE;
+                    result = result.union(CharClass.range(start, end));
+                    break;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "stored(" + name + ")";
+    }
+}
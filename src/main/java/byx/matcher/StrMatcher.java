@@ -0,0 +1,33 @@
+package byx.matcher;
+
+/**
+ * 匹配字符串str
+ */
+final class StrMatcher implements Matcher {
+    final String str;
+
+    StrMatcher(String str) {
+        this.str = str;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        int n = str.length();
+        int limit = Math.min(n, s.length() - index);
+        for (int i = 0; i < limit; i++) {
+            if (s.charAt(index + i) != str.charAt(i)) {
+                ctx.reach(index + i);
+                return;
+            }
+        }
+        ctx.reach(index + limit);
+        if (limit == n) {
+            result.add(index + n);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "\"" + str + "\"";
+    }
+}
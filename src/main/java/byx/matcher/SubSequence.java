@@ -0,0 +1,55 @@
+package byx.matcher;
+
+/**
+ * 字符序列[start, end)范围内的只读视图，不复制字符
+ */
+final class SubSequence implements CharSequence {
+    private final CharSequence base;
+    private final int start;
+    private final int end;
+
+    private SubSequence(CharSequence base, int start, int end) {
+        this.base = base;
+        this.start = start;
+        this.end = end;
+    }
+
+    /**
+     * 创建视图，base本身是视图时直接引用其底层序列
+     * @param base 底层序列
+     * @param start 起始位置
+     * @param end 结束位置（不包含）
+     */
+    static CharSequence of(CharSequence base, int start, int end) {
+        if (start < 0 || end > base.length() || start > end) {
+            throw new IndexOutOfBoundsException("start: " + start + ", end: " + end + ", length: " + base.length());
+        }
+        if (base instanceof SubSequence sub) {
+            return new SubSequence(sub.base, sub.start + start, sub.start + end);
+        }
+        return new SubSequence(base, start, end);
+    }
+
+    @Override
+    public int length() {
+        return end - start;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= end - start) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        return base.charAt(start + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return of(this, start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder(end - start).append(base, start, end).toString();
+    }
+}
@@ -0,0 +1,72 @@
+package byx.matcher;
+
+/**
+ * 匹配字符串集合中的任意一个字符串，字符串集合保存在双数组字典树中
+ * 每个位置只需沿字典树走一遍，不受字符串个数影响
+ */
+final class TrieMatcher implements Matcher {
+    final DoubleArrayTrie trie;
+    private volatile AhoCorasick automaton;
+
+    TrieMatcher(DoubleArrayTrie trie) {
+        this.trie = trie;
+    }
+
+    /**
+     * 若所有Matcher都只匹配固定字符串且不全是单个字符，将它们合并成一个TrieMatcher
+     * @return 合并结果，不满足条件时返回null
+     */
+    static Matcher ofLiterals(Matcher m1, Matcher m2, Matcher... matchers) {
+        String[] words = new String[matchers.length + 2];
+        boolean allSingle = true;
+        for (int i = 0; i < words.length; i++) {
+            Matcher m = i == 0 ? m1 : i == 1 ? m2 : matchers[i - 2];
+            if (m instanceof StrMatcher str) {
+                words[i] = str.str;
+            } else if (m instanceof CharClassMatcher c && c.cls.size() == 1) {
+                words[i] = String.valueOf(c.cls.rangeStart(0));
+            } else {
+                return null;
+            }
+            allSingle &= words[i].length() == 1;
+        }
+        return allSingle ? null : new TrieMatcher(DoubleArrayTrie.build(words));
+    }
+
+    /**
+     * 用于非锚定查找的AC自动机，首次使用时构建
+     */
+    AhoCorasick automaton() {
+        AhoCorasick ac = automaton;
+        if (ac == null) {
+            ac = new AhoCorasick(trie);
+            automaton = ac;
+        }
+        return ac;
+    }
+
+    @Override
+    public void parse(CharSequence s, int index, PositionSet result, MatchContext ctx) {
+        int state = DoubleArrayTrie.ROOT;
+        if (trie.isTerminal(state)) {
+            result.add(index);
+        }
+        int i = index;
+        while (i < s.length()) {
+            state = trie.next(state, s.charAt(i));
+            if (state < 0) {
+                break;
+            }
+            i++;
+            if (trie.isTerminal(state)) {
+                result.add(i);
+            }
+        }
+        ctx.reach(i);
+    }
+
+    @Override
+    public String toString() {
+        return "trie(" + trie.wordCount + ")";
+    }
+}
@@ -0,0 +1,167 @@
+package byx.matcher;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * UTF-8字节数据上的字符序列视图
+ * 每隔64个字符记录一次对应的字节偏移，随机访问从最近的检查点开始解码，顺序访问通过游标保持O(1)
+ * 全部为ASCII字节时不建立检查点，直接按下标访问
+ */
+final class Utf8Sequence implements CharSequence {
+    private static final int STRIDE_BITS = 6;
+    private static final int REPLACEMENT = 0xFFFD;
+
+    private final ByteBuffer buf;
+    private final int start;
+    private final int end;
+    private final int length;
+
+    /**
+     * 第k个检查点对应第k * 64个字符，保存(字节偏移 << 1) | (是否为代理对的低位)，为null表示全部是ASCII
+     */
+    private final long[] checkpoints;
+
+    // 游标：上次访问的字符下标及其所在码点的字节偏移
+    private int cursorChar = -1;
+    private int cursorByte;
+    private boolean cursorLow;
+
+    private Utf8Sequence(ByteBuffer buf, int start, int end, int length, long[] checkpoints) {
+        this.buf = buf;
+        this.start = start;
+        this.end = end;
+        this.length = length;
+        this.checkpoints = checkpoints;
+    }
+
+    static Utf8Sequence of(ByteBuffer buf, int start, int end) {
+        int p = start;
+        while (p < end && buf.get(p) >= 0) {
+            p++;
+        }
+        if (p == end) {
+            return new Utf8Sequence(buf, start, end, end - start, null);
+        }
+
+        long[] checkpoints = new long[16];
+        int count = 0;
+        int chars = 0;
+        p = start;
+        while (p < end) {
+            int d = decode(buf, p, end);
+            int n = (d & 0x1FFFFF) >= 0x10000 ? 2 : 1;
+            for (int k = 0; k < n; k++) {
+                if (((chars + k) & ((1 << STRIDE_BITS) - 1)) == 0) {
+                    if (count == checkpoints.length) {
+                        checkpoints = Arrays.copyOf(checkpoints, count * 2);
+                    }
+                    checkpoints[count++] = ((long) p << 1) | k;
+                }
+            }
+            chars += n;
+            p += d >>> 21;
+        }
+        return new Utf8Sequence(buf, start, end, chars, Arrays.copyOf(checkpoints, count));
+    }
+
+    /**
+     * 解码p处的码点
+     * @return (字节数 << 21) | 码点
+     */
+    private static int decode(ByteBuffer buf, int p, int end) {
+        int b0 = buf.get(p) & 0xff;
+        if (b0 < 0x80) {
+            return (1 << 21) | b0;
+        }
+        int len, cp, min;
+        if ((b0 & 0xE0) == 0xC0) {
+            len = 2;
+            cp = b0 & 0x1F;
+            min = 0x80;
+        } else if ((b0 & 0xF0) == 0xE0) {
+            len = 3;
+            cp = b0 & 0x0F;
+            min = 0x800;
+        } else if ((b0 & 0xF8) == 0xF0) {
+            len = 4;
+            cp = b0 & 0x07;
+            min = 0x10000;
+        } else {
+            return (1 << 21) | REPLACEMENT;
+        }
+        if (p + len > end) {
+            return (1 << 21) | REPLACEMENT;
+        }
+        for (int k = 1; k < len; k++) {
+            int b = buf.get(p + k) & 0xff;
+            if ((b & 0xC0) != 0x80) {
+                return (1 << 21) | REPLACEMENT;
+            }
+            cp = (cp << 6) | (b & 0x3F);
+        }
+        if (cp < min || cp > 0x10FFFF || (cp >= 0xD800 && cp <= 0xDFFF)) {
+            return (1 << 21) | REPLACEMENT;
+        }
+        return (len << 21) | cp;
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= length) {
+            throw new IndexOutOfBoundsException(index);
+        }
+        if (checkpoints == null) {
+            return (char) buf.get(start + index);
+        }
+
+        int c, p;
+        boolean low;
+        if (cursorChar >= 0 && index >= cursorChar && index - cursorChar < (1 << STRIDE_BITS)) {
+            c = cursorChar;
+            p = cursorByte;
+            low = cursorLow;
+        } else {
+            long cp = checkpoints[index >>> STRIDE_BITS];
+            c = index & -(1 << STRIDE_BITS);
+            p = (int) (cp >>> 1);
+            low = (cp & 1) != 0;
+        }
+
+        int d = decode(buf, p, end);
+        while (c < index) {
+            if (!low && (d & 0x1FFFFF) >= 0x10000) {
+                low = true;
+            } else {
+                p += d >>> 21;
+                low = false;
+                d = decode(buf, p, end);
+            }
+            c++;
+        }
+        cursorChar = c;
+        cursorByte = p;
+        cursorLow = low;
+
+        int cp = d & 0x1FFFFF;
+        if (cp < 0x10000) {
+            return (char) cp;
+        }
+        return low ? Character.lowSurrogate(cp) : Character.highSurrogate(cp);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return SubSequence.of(this, start, end);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder(this).toString();
+    }
+}
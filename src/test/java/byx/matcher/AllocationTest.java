@@ -0,0 +1,71 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AllocationTest {
+    /**
+     * expr = term ('+' term)*
+     * term = number | '(' expr ')'
+     */
+    private static class Expr {
+        static final Matcher term = oneOf(
+            range('0', '9').many1(),
+            ch('(').and(lazy(() -> Expr.expr)).and(ch(')'))
+        );
+        static final Matcher expr = term.and(ch('+').and(term).many());
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static long allocatedPerMatch(Matcher m, String s, MatchContext ctx) {
+        for (int i = 0; i < 20000; i++) {
+            assertTrue(ctx == null ? m.match(s) : m.match(s, ctx));
+        }
+        int n = 10000;
+        long before = allocatedBytes();
+        for (int i = 0; i < n; i++) {
+            if (ctx == null ? !m.match(s) : !m.match(s, ctx)) {
+                fail();
+            }
+        }
+        return (allocatedBytes() - before) / n;
+    }
+
+    @Test
+    public void testSteadyStateMatch() {
+        String s = "12+(3+45)+((6))+789";
+        assertEquals(0, allocatedPerMatch(Expr.expr, s, null));
+        assertEquals(0, allocatedPerMatch(Expr.expr, s, new MatchContext()));
+        assertEquals(0, allocatedPerMatch(ch('a').many().and(ch('b').repeat(2, 5)).and(str("cd")), "aaabbbcd", null));
+    }
+
+    @Test
+    public void testNestedMatch() {
+        // mapper中再次调用match时使用另一个上下文
+        Matcher inner = ch('a').many1();
+        Matcher m = range('0', '9').flatMap(d -> inner.match("a".repeat(d.charAt(0) - '0')) ? ch('x') : ch('y'));
+        assertTrue(m.match("3x"));
+        assertTrue(m.match("0y"));
+        assertFalse(m.match("3y"));
+        assertTrue(Expr.expr.match("1+(2)"));
+    }
+
+    @Test
+    public void testPoolAfterException() {
+        Matcher m = ch('a').many().and(ch('b'));
+        MatchContext ctx = new MatchContext();
+        ctx.setBudget(MatchBudget.unlimited().maxSteps(3));
+        assertThrows(BudgetExceededException.class, () -> m.match("aaaaab", ctx));
+        ctx.setBudget(MatchBudget.unlimited());
+        assertTrue(m.match("aaaaab", ctx));
+        assertFalse(m.match("aaaaa", ctx));
+    }
+}
@@ -0,0 +1,124 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AnalysisTest {
+    /**
+     * expr = term ('+' term)*
+     * term = digit+ | '(' expr ')'
+     */
+    private static class Expr {
+        static final Matcher term = range('0', '9').many1().or(ch('(').and(lazy(() -> Expr.expr)).and(ch(')')));
+        static final Matcher expr = term.and(ch('+').and(term).many());
+    }
+
+    private static List<Analysis.Kind> kinds(Analysis a) {
+        return a.issues().stream().map(Analysis.Issue::kind).toList();
+    }
+
+    @Test
+    public void testLinear() {
+        Analysis a = range('a', 'z').many1().and(ch('@')).and(range('a', 'z').many1()).analyze();
+        assertEquals(Analysis.Complexity.LINEAR, a.complexity());
+        assertEquals(1, a.degree());
+        assertTrue(a.isRegular());
+        assertTrue(a.issues().isEmpty());
+        assertEquals(1, a.repeatDepth());
+
+        assertEquals(Analysis.Complexity.LINEAR, str("abc").analyze().complexity());
+        assertEquals(Analysis.Complexity.LINEAR, strs("if", "else").many().analyze().complexity());
+    }
+
+    @Test
+    public void testNullableRepeat() {
+        Matcher m = ch('a').many().many();
+        Analysis a = m.analyze();
+        assertEquals(List.of(Analysis.Kind.NULLABLE_REPEAT), kinds(a));
+        assertSame(m, a.issues().get(0).node());
+        assertEquals(Analysis.Complexity.POLYNOMIAL, a.complexity());
+        assertEquals(2, a.degree());
+        assertEquals(2, a.repeatDepth());
+
+        assertEquals(List.of(Analysis.Kind.NULLABLE_REPEAT), kinds(ch('a').repeat(0, 1).and(ch('b').many()).many().analyze()));
+    }
+
+    @Test
+    public void testNestedRepeat() {
+        Analysis a = ch('a').many1().many1().analyze();
+        assertEquals(List.of(Analysis.Kind.NESTED_REPEAT), kinds(a));
+        assertEquals(2, a.degree());
+
+        // 重复次数有限的外层不改变次数
+        assertEquals(Analysis.Complexity.LINEAR, ch('a').many1().repeat(1).analyze().complexity());
+        assertEquals(2, ch('a').many1().repeat(3).analyze().degree());
+    }
+
+    @Test
+    public void testDegree() {
+        // 第二个many从第一个many的O(n)个结果出发，结果集合去重后第三个many不再增加次数
+        Matcher m = ch('a').many().and(ch('a').many()).and(ch('a').many());
+        assertEquals(2, m.analyze().degree());
+        assertEquals(Analysis.Complexity.POLYNOMIAL, m.analyze().complexity());
+        assertEquals(3, ch('a').many().and(ch('a').many()).many().analyze().degree());
+
+        // 后一部分不能从前一部分消耗过的字符开始
+        assertEquals(1, range('0', '9').many1().and(ch('.')).and(range('0', '9').many()).analyze().degree());
+        assertEquals(1, ch('a').many1().and(ch('b')).many().analyze().degree());
+        assertEquals(2, oneOf(ch('a'), ch('b')).many().and(ch('a')).and(ch('a').many1()).analyze().degree());
+
+        // 编译之后是线性的
+        assertEquals(Analysis.Complexity.LINEAR, m.compile().analyze().complexity());
+    }
+
+    @Test
+    public void testAmbiguousOr() {
+        Analysis a = str("a").or(str("ab")).or(str("c")).analyze();
+        assertEquals(List.of(Analysis.Kind.AMBIGUOUS_OR), kinds(a));
+        assertTrue(a.issues().get(0).message().contains("[a]"));
+
+        assertEquals(List.of(Analysis.Kind.AMBIGUOUS_OR), kinds(ch('a').repeat(0, 1).or(ch('b').many()).analyze()));
+        assertTrue(str("if").or(str("else")).or(range('0', '9')).analyze().issues().isEmpty());
+
+        // 只包含字符串的oneOf使用Trie，没有歧义
+        assertTrue(oneOf(str("a"), str("ab"), str("c")).analyze().issues().isEmpty());
+    }
+
+    @Test
+    public void testRecursive() {
+        Analysis a = Expr.expr.analyze();
+        assertEquals(Analysis.Complexity.EXPONENTIAL, a.complexity());
+        assertFalse(a.isRegular());
+        assertTrue(a.issues().isEmpty());
+        assertTrue(a.nestingDepth() > 3);
+
+        // 左递归的lazy只展开一次
+        Matcher[] s = new Matcher[1];
+        s[0] = lazy(() -> s[0]).and(ch('a')).or(ch('a'));
+        assertEquals(Analysis.Complexity.EXPONENTIAL, s[0].analyze().complexity());
+    }
+
+    @Test
+    public void testUnknown() {
+        Matcher m = range('0', '9').many1().flatMap(s -> ch('a').repeat(Integer.parseInt(s.toString())));
+        assertEquals(Analysis.Complexity.UNKNOWN, m.analyze().complexity());
+    }
+
+    @Test
+    public void testCheck() {
+        Matcher m = MatcherParser.parse("(a*)*b");
+        Analysis a = m.analyze();
+        assertEquals(List.of(Analysis.Kind.NULLABLE_REPEAT), kinds(a));
+        assertSame(a, a.check(Analysis.Complexity.POLYNOMIAL));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+            () -> a.check(Analysis.Complexity.LINEAR));
+        assertTrue(e.getMessage().contains("NULLABLE_REPEAT"));
+
+        assertDoesNotThrow(() -> MatcherParser.parse("[a-z]+@[a-z]+\\.com").analyze().check(Analysis.Complexity.LINEAR));
+        assertDoesNotThrow(() -> MatcherParser.compile("(a*)*b").analyze().check(Analysis.Complexity.LINEAR));
+    }
+}
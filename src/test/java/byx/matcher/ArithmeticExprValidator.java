@@ -0,0 +1,25 @@
+package byx.matcher;
+
+import static byx.matcher.Matcher.*;
+
+/**
+ * 算数表达式校验
+ * expr = term ('+'|'-' term)+
+ * term = fact ('*'|'/' fact)+
+ * fact = [0-9]+
+ *      | '-' fact
+ *      | '(' expr ')'
+ */
+class ArithmeticExprValidator {
+    private static final Matcher fact = oneOf(
+        range('0', '9').many1(),
+        ch('-').and(lazy(() -> ArithmeticExprValidator.fact)),
+        ch('(').and(lazy(() -> ArithmeticExprValidator.expr)).and(')')
+    );
+    private static final Matcher term = fact.and(chs('*', '/').and(fact).many());
+    private static final Matcher expr = term.and(chs('+', '-').and(term).many());
+
+    public static boolean isValidExpr(String s) {
+        return expr.match(s);
+    }
+}
@@ -0,0 +1,102 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchMatcherTest {
+    private static final Matcher multipleOf3 = MatcherParser.parse("[0369]*(([147][0369]*|[258][0369]*[258][0369]*)([147][0369]*[258][0369]*)*([258][0369]*|[147][0369]*[147][0369]*)|[258][0369]*[147][0369]*)*");
+
+    private static List<String> numbers(int n) {
+        return IntStream.range(0, n).mapToObj(String::valueOf).toList();
+    }
+
+    @Test
+    public void testMatchAll() {
+        List<String> inputs = numbers(10000);
+        boolean[] result = multipleOf3.matchAll(inputs);
+        assertEquals(inputs.size(), result.length);
+        for (int i = 0; i < result.length; i++) {
+            assertEquals(i % 3 == 0, result[i]);
+        }
+
+        BitSet bits = multipleOf3.compile().matchAllBits(inputs);
+        for (int i = 0; i < inputs.size(); i++) {
+            assertEquals(i % 3 == 0, bits.get(i));
+        }
+
+        result = multipleOf3.matchAll(inputs.stream().limit(10));
+        assertArrayEquals(new boolean[]{true, false, false, true, false, false, true, false, false, true}, result);
+    }
+
+    @Test
+    public void testCustomPool() {
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            List<String> inputs = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                inputs.add("(".repeat(i % 20) + ")".repeat(i % 20 + i % 2));
+            }
+            BatchMatcher batch = new BatchMatcher(BracketMatcher.expr, pool, MatchContext::memoized);
+            boolean[] result = batch.matchAll(inputs);
+            for (int i = 0; i < inputs.size(); i++) {
+                assertEquals(i % 20 != 0 && i % 2 == 0, result[i], inputs.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testReleaseMemo() {
+        // 任务结束后工作线程的上下文不再持有输入和记忆化结果
+        List<MatchContext> contexts = new CopyOnWriteArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            BatchMatcher batch = new BatchMatcher(BracketMatcher.expr, pool, () -> {
+                MatchContext ctx = MatchContext.memoized();
+                contexts.add(ctx);
+                return ctx;
+            });
+            List<String> inputs = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                inputs.add("()".repeat(i % 50 + 1));
+            }
+            assertEquals(1000, batch.matchAllBits(inputs).cardinality());
+            assertFalse(contexts.isEmpty());
+            for (MatchContext ctx : contexts) {
+                assertEquals(0, ctx.memoSize());
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecutor() {
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            Matcher m = not(' ').many1().flatMap(s -> ch(' ').and(str(s)));
+            List<String> inputs = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                inputs.add(i + " " + (i % 7 == 0 ? i : i + 1));
+            }
+            BitSet bits = new BatchMatcher(m, executor).matchAllBits(inputs);
+            for (int i = 0; i < inputs.size(); i++) {
+                assertEquals(i % 7 == 0, bits.get(i));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
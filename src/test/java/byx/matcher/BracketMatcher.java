@@ -0,0 +1,21 @@
+package byx.matcher;
+
+import static byx.matcher.Matcher.*;
+
+/**
+ * 括号匹配校验
+ * expr = term+
+ * term = "()"
+ *      | '(' expr ')'
+ */
+class BracketMatcher {
+    private static final Matcher term = oneOf(
+        str("()"),
+        ch('(').and(lazy(() -> BracketMatcher.expr)).and(')')
+    );
+    static final Matcher expr = term.many1();
+
+    public static boolean isBracketMatch(String s) {
+        return expr.match(s);
+    }
+}
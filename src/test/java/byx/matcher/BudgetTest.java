@@ -0,0 +1,89 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BudgetTest {
+    /**
+     * 两个相同的分支使非记忆化的解析时间随输入长度指数增长
+     * s = 'a' s | 'a' s | 'b'
+     */
+    private static class Exponential {
+        static final Matcher s = oneOf(
+            ch('a').and(lazy(() -> Exponential.s)),
+            ch('a').and(lazy(() -> Exponential.s)),
+            ch('b')
+        );
+    }
+
+    @Test
+    public void testMaxSteps() {
+        MatchBudget budget = MatchBudget.unlimited().maxSteps(10000);
+        assertTrue(Exponential.s.match("aaab", budget));
+
+        BudgetExceededException e = assertThrows(BudgetExceededException.class,
+            () -> Exponential.s.match("a".repeat(40) + "c", budget));
+        assertEquals(BudgetExceededException.Limit.STEPS, e.limit());
+        assertEquals(10000, e.steps());
+
+        MatchContext ctx = new MatchContext();
+        ctx.setBudget(MatchBudget.unlimited().maxSteps(2));
+        assertTrue(ch('a').many().match("aa", ctx));
+        assertEquals(2, ctx.steps());
+        assertThrows(BudgetExceededException.class, () -> ch('a').many().match("aaa", ctx));
+
+        // 记忆化模式下不会超出
+        MatchContext memo = MatchContext.memoized();
+        memo.setBudget(budget);
+        assertFalse(Exponential.s.match("a".repeat(40) + "c", memo));
+    }
+
+    @Test
+    public void testTimeout() {
+        MatchBudget budget = MatchBudget.unlimited().timeout(Duration.ofMillis(50));
+        long start = System.nanoTime();
+        BudgetExceededException e = assertThrows(BudgetExceededException.class,
+            () -> Exponential.s.match("a".repeat(60) + "c", budget));
+        assertEquals(BudgetExceededException.Limit.TIMEOUT, e.limit());
+        assertTrue(System.nanoTime() - start < Duration.ofSeconds(5).toNanos());
+
+        Matcher flatMap = ch('a').many1().flatMap(s -> Exponential.s);
+        assertThrows(BudgetExceededException.class, () -> flatMap.match("a".repeat(60) + "c", budget));
+    }
+
+    @Test
+    public void testMaxPositions() {
+        MatchBudget budget = MatchBudget.unlimited().maxPositions(100);
+        assertTrue(ch('a').many().match("a".repeat(99), budget));
+        BudgetExceededException e = assertThrows(BudgetExceededException.class,
+            () -> ch('a').many().match("a".repeat(1000), budget));
+        assertEquals(BudgetExceededException.Limit.POSITIONS, e.limit());
+
+        Matcher m = ch('a').repeat(0, 500).and(ch('b'));
+        assertThrows(BudgetExceededException.class, () -> m.parse("a".repeat(1000) + "b", 0, budget));
+        assertEquals(Set.of(11), m.parse("a".repeat(10) + "b", 0, budget));
+    }
+
+    @Test
+    public void testStackEngine() {
+        Matcher[] holder = new Matcher[1];
+        Matcher nested = ch('(').and(lazy(() -> holder[0]).repeat(0, 1)).and(ch(')'));
+        holder[0] = nested;
+        String input = "(".repeat(5000) + ")".repeat(5000);
+        assertTrue(nested.match(input, MatchBudget.unlimited().maxSteps(100000)));
+
+        MatchContext ctx = MatchContext.memoized();
+        ctx.setBudget(MatchBudget.unlimited().maxSteps(1000));
+        assertThrows(BudgetExceededException.class, () -> nested.match(input, ctx));
+
+        // 中止后上下文仍然可以使用
+        ctx.setBudget(MatchBudget.unlimited());
+        assertTrue(nested.match(input, ctx));
+        assertEquals(0, ctx.steps());
+    }
+}
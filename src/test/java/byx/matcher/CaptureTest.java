@@ -0,0 +1,124 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CaptureTest {
+    @Test
+    public void testCombinator() {
+        Matcher digits = range('0', '9').many1();
+        Matcher date = seq(digits.capture(1), ch('-'), digits.capture(2), ch('-'), digits.capture(3));
+        MatchResult r = date.matchResult("2024-01-31").orElseThrow();
+        assertEquals(3, r.groupCount());
+        assertEquals("2024-01-31", r.group(0));
+        assertEquals("2024", r.group(1));
+        assertEquals("01", r.group(2));
+        assertEquals("31", r.group(3));
+        assertEquals(5, r.start(2));
+        assertEquals(7, r.end(2));
+        assertTrue(date.matchResult("2024-01").isEmpty());
+        assertThrows(IndexOutOfBoundsException.class, () -> r.group(4));
+        assertThrows(IllegalArgumentException.class, () -> digits.capture(0));
+    }
+
+    @Test
+    public void testParser() {
+        Matcher m = MatcherParser.parse("([a-z]+)@([a-z]+)\\.(com|org)");
+        MatchResult r = m.matchResult("alice@example.org").orElseThrow();
+        assertEquals(List.of("alice", "example", "org"), List.of(r.group(1), r.group(2), r.group(3)));
+
+        m = MatcherParser.parse("((a)|(b))*c");
+        r = m.matchResult("abac").orElseThrow();
+        assertEquals(3, r.groupCount());
+        assertEquals("a", r.group(1));
+        assertEquals("a", r.group(2));
+        assertEquals("b", r.group(3));
+        r = m.matchResult("aac").orElseThrow();
+        assertNull(r.group(3));
+        assertEquals(-1, r.start(3));
+
+        Matcher compiled = MatcherParser.compile("(a+)(b+)");
+        assertInstanceOf(DfaMatcher.class, compiled);
+        r = compiled.matchResult("aabbb").orElseThrow();
+        assertEquals("aa", r.group(1));
+        assertEquals("bbb", r.group(2));
+    }
+
+    @Test
+    public void testAlternativeOrder() {
+        // 化简不能改变分支的优先顺序
+        assertEquals("a", MatcherParser.parse("(a)|[ab]").matchResult("a").orElseThrow().group(1));
+        assertEquals("a", ch('a').capture(1).or(chs('a', 'b')).matchResult("a").orElseThrow().group(1));
+        assertEquals("a", MatcherParser.parse("b|(a)|[ab]").matchResult("a").orElseThrow().group(1));
+        assertEquals("a", MatcherParser.compile("(a)|[ab]").matchResult("a").orElseThrow().group(1));
+        assertNull(MatcherParser.parse("[ab]|(a)").matchResult("a").orElseThrow().group(1));
+        assertEquals("x", MatcherParser.parse("(x)y|b|xy").matchResult("xy").orElseThrow().group(1));
+    }
+
+    @Test
+    public void testFind() {
+        Matcher m = MatcherParser.compile("([A-Z])([0-9]+)");
+        List<String> ids = m.findAll("x A12 B3 c4").stream().map(r -> r.group(1) + "=" + r.group(2)).toList();
+        assertEquals(List.of("A=12", "B=3"), ids);
+
+        // 不查询捕获组时不计算
+        MatchResult r = MatcherParser.parse("(a|b)+").find("xxab").orElseThrow();
+        assertEquals("ab", r.group());
+    }
+
+    @Test
+    public void testRecursive() {
+        Matcher m = ch('(').and(BracketMatcher.expr.capture(1)).and(')').capture(2);
+        MatchResult r = m.matchResult("(()(()))").orElseThrow();
+        assertEquals("()(())", r.group(1));
+        assertEquals("(()(()))", r.group(2));
+
+        Matcher sum = LeftRecursiveArithmetic.expr.capture(1).and(ch('=')).and(range('0', '9').many1().capture(2));
+        r = sum.matchResult("1+2*3=7").orElseThrow();
+        assertEquals("1+2*3", r.group(1));
+        assertEquals("7", r.group(2));
+    }
+
+    @Test
+    public void testLongRepeat() {
+        // 重复次数远超MAX_STACK_DEPTH时计算捕获组不会栈溢出
+        String s = "a".repeat(100000);
+        MatchResult r = MatcherParser.parse("(a)*").matchResult(s).orElseThrow();
+        assertEquals("a", r.group(1));
+        assertEquals(99999, r.start(1));
+
+        r = MatcherParser.parse("((a)(b)?)+").matchResult(s + "b").orElseThrow();
+        assertEquals("ab", r.group(1));
+        assertEquals("b", r.group(3));
+        assertEquals(s.length() - 1, r.start(2));
+        r = MatcherParser.parse("((a)(b)?){2,}c").matchResult("ab" + s + "c").orElseThrow();
+        assertEquals("a", r.group(1));
+        assertEquals("b", r.group(3));
+    }
+
+    @Test
+    public void testSameAsJavaRegex() {
+        // 组内不含交替分支时，贪婪的捕获结果与java.util.regex一致
+        String[][] cases = {
+            {"(a*)(a*)", "aaaa"},
+            {"(a+)(a*)b", "aaab"},
+            {"x(y*)z(w*)", "xyyz"},
+            {"([0-9]+)\\.([0-9]+)", "3.14159"},
+            {"(ab)+(c)", "ababc"},
+        };
+        for (String[] c : cases) {
+            java.util.regex.Matcher expected = Pattern.compile(c[0]).matcher(c[1]);
+            assertTrue(expected.matches());
+            MatchResult actual = MatcherParser.parse(c[0]).matchResult(c[1]).orElseThrow();
+            for (int g = 1; g <= expected.groupCount(); g++) {
+                assertEquals(expected.start(g), actual.start(g), c[0] + " " + g);
+                assertEquals(expected.end(g), actual.end(g), c[0] + " " + g);
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CharClassTest {
+    private static void assertChars(CharClass cls, String yes, String no) {
+        for (char c : yes.toCharArray()) {
+            assertTrue(cls.contains(c), cls + " should contain " + c);
+        }
+        for (char c : no.toCharArray()) {
+            assertFalse(cls.contains(c), cls + " should not contain " + c);
+        }
+    }
+
+    @Test
+    public void testOf() {
+        CharClass cls = CharClass.of('c', 'a', 'b', 'x', 'a');
+        assertChars(cls, "abcx", "dwy 世");
+        assertEquals(2, cls.rangeCount());
+        assertEquals(4, cls.size());
+        assertEquals("[a-cx]", cls.toString());
+    }
+
+    @Test
+    public void testRange() {
+        assertEquals(CharClass.range('0', '9'), CharClass.range('9', '0'));
+        assertChars(CharClass.range('一', '龥'), "世界", "ab！");
+        assertChars(CharClass.range('A', 'z'), "AZaz_^", "@{");
+    }
+
+    @Test
+    public void testUnion() {
+        CharClass cls = CharClass.range('a', 'z').union(CharClass.range('A', 'Z')).union(CharClass.of('_'));
+        assertChars(cls, "azAZ_m", "09-");
+        assertEquals(3, cls.rangeCount());
+        assertEquals(CharClass.range('a', 'm').union(CharClass.range('n', 'z')), CharClass.range('a', 'z'));
+        assertEquals(CharClass.range('a', 'm').union(CharClass.range('f', 'z')), CharClass.range('a', 'z'));
+    }
+
+    @Test
+    public void testIntersect() {
+        CharClass letters = CharClass.range('a', 'z').union(CharClass.range('A', 'Z'));
+        CharClass hex = CharClass.range('0', '9').union(CharClass.range('a', 'f')).union(CharClass.range('A', 'F'));
+        assertEquals(CharClass.range('a', 'f').union(CharClass.range('A', 'F')), letters.intersect(hex));
+        assertTrue(CharClass.range('a', 'z').intersect(CharClass.range('0', '9')).isEmpty());
+    }
+
+    @Test
+    public void testNegate() {
+        CharClass cls = CharClass.of('"').negate();
+        assertChars(cls, "ab \u0000￿世", "\"");
+        assertEquals(CharClass.of('"'), cls.negate());
+        assertEquals(CharClass.none(), CharClass.any().negate());
+        assertEquals(CharClass.any(), CharClass.none().negate());
+        assertEquals(65535, cls.size());
+    }
+
+    @Test
+    public void testParser() {
+        Matcher m = MatcherParser.parse("[a-zA-Z0-9_]");
+        assertInstanceOf(CharClassMatcher.class, m);
+        assertTrue(m.match("_"));
+        assertTrue(m.match("Q"));
+        assertFalse(m.match("-"));
+    }
+}
@@ -0,0 +1,139 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Objects;
+import java.util.Scanner;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompileTest {
+    @Test
+    public void testCompile() {
+        Matcher m = ch('a').and(str("mn").or("xy")).and(range('0', '9').many1()).compile();
+        assertInstanceOf(DfaMatcher.class, m);
+        assertTrue(m.match("amn12345"));
+        assertTrue(m.match("axy123"));
+        assertFalse(m.match("ax12345"));
+        assertFalse(m.match("amnxy"));
+        assertSame(m, m.compile());
+    }
+
+    @Test
+    public void testRepeat() {
+        Matcher m = ch('a').repeat(3, 5).compile();
+        assertInstanceOf(DfaMatcher.class, m);
+        assertFalse(m.match("aa"));
+        assertTrue(m.match("aaa"));
+        assertTrue(m.match("aaaaa"));
+        assertFalse(m.match("aaaaaa"));
+
+        m = ch('a').many(3).compile();
+        assertFalse(m.match("aa"));
+        assertTrue(m.match("a".repeat(1000)));
+
+        m = str("").many().compile();
+        assertTrue(m.match(""));
+        assertFalse(m.match("a"));
+    }
+
+    @Test
+    public void testNotRegular() {
+        Matcher m = not(' ').many1().flatMap(s -> ch(' ').and(str(s)));
+        assertSame(m, m.compile());
+
+        Matcher expr = lazy(() -> BracketMatcher.expr);
+        assertSame(expr, expr.compile());
+
+        Matcher huge = ch('a').repeat(100000);
+        assertSame(huge, huge.compile());
+    }
+
+    @Test
+    public void testNonRecursiveLazy() {
+        Matcher digit = lazy(() -> range('0', '9'));
+        Matcher m = digit.and(ch('.').and(digit.many1()).repeat(0, 1)).compile();
+        assertInstanceOf(DfaMatcher.class, m);
+        assertTrue(m.match("3"));
+        assertTrue(m.match("3.14"));
+        assertFalse(m.match("3."));
+    }
+
+    @Test
+    public void testParseSameAsInterpreter() {
+        String[] exprs = {"(a|ab)c", "(a*)*", "a*b*a", "(0|1(01*0)*1)*", "[_a-zA-Z][_0-9a-zA-Z]*", "(.*)adidas(.*)"};
+        String[] inputs = {"", "a", "abc", "ac", "aaab", "aaba", "110", "1001", "_var1", "xxadidasyy", "adidas"};
+        for (String expr : exprs) {
+            Matcher m1 = MatcherParser.parse(expr);
+            Matcher m2 = MatcherParser.compile(expr);
+            for (String s : inputs) {
+                for (int i = 0; i <= s.length(); i++) {
+                    assertEquals(m1.parse(s, i), m2.parse(s, i), expr + " " + s + " " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBytecode() {
+        String[] exprs = {"(a|ab)c", "(a*)*", "a*b*a", "(0|1(01*0)*1)*", "[_a-zA-Z][_0-9a-zA-Z]*", "(.*)adidas(.*)",
+            "[^a-c]{2,4}", "\\d+(\\.\\d+)?", "[\u4e00-\u9fa5]+x"};
+        String[] inputs = {"", "a", "abc", "ac", "aaab", "aaba", "110", "1001", "_var1", "xxadidasyy", "adidas",
+            "3.14", "dd", "defgh", "\u4e2d\u6587x", "\u4e2dx\u6587"};
+        for (String expr : exprs) {
+            Matcher m1 = MatcherParser.compile(expr);
+            Matcher m2 = m1.compileBytecode();
+            assertInstanceOf(DfaMatcher.class, m2, expr);
+            assertTrue(((DfaMatcher) m2).isGenerated(), expr);
+            assertSame(m2, m2.compileBytecode());
+            for (String s : inputs) {
+                assertEquals(m1.match(s), m2.match(s), expr + " " + s);
+                assertEquals(m1.find(s).map(MatchResult::group), m2.find(s).map(MatchResult::group), expr + " " + s);
+                for (int i = 0; i <= s.length(); i++) {
+                    assertEquals(m1.parse(s, i), m2.parse(s, i), expr + " " + s + " " + i);
+                }
+            }
+        }
+
+        // 作为组合子的一部分使用
+        Matcher word = MatcherParser.parse("[a-z]+").compileBytecode();
+        Matcher list = word.and(ch(',').and(word).many());
+        assertTrue(list.match("ab,c,def"));
+        assertFalse(list.match("ab,,c"));
+    }
+
+    @Test
+    public void testBytecodeFallback() {
+        // 任意Predicate无法展开成字符区间，退回到解释执行的DFA
+        Matcher m = ch(Character::isDigit).many1().compileBytecode();
+        assertInstanceOf(DfaMatcher.class, m);
+        assertFalse(((DfaMatcher) m).isGenerated());
+        assertTrue(m.match("123"));
+
+        Matcher flatMap = not(' ').many1().flatMap(s -> ch(' ').and(str(s)));
+        assertSame(flatMap, flatMap.compileBytecode());
+        assertTrue(flatMap.match("abc abc"));
+    }
+
+    @Test
+    public void testFileCases() {
+        // 与组合子解析结果做差分测试
+        for (int i = 1; i <= 11; ++i) {
+            Scanner in = new Scanner(Objects.requireNonNull(getClass().getClassLoader().getResourceAsStream("regular" + i + ".in")));
+            Scanner out = new Scanner(Objects.requireNonNull(getClass().getClassLoader().getResourceAsStream("regular" + i + ".out")));
+            while (in.hasNext()) {
+                String expr = in.nextLine();
+                String str = in.nextLine();
+                boolean ans = "Yes".equals(out.nextLine());
+
+                Matcher m = MatcherParser.parse(expr);
+                Matcher compiled = m.compile();
+                assertInstanceOf(DfaMatcher.class, compiled, expr);
+                assertEquals(ans, m.match(str), expr);
+                assertEquals(ans, compiled.match(str), expr);
+                assertEquals(ans, compiled.compileBytecode().match(str), expr);
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DispatchTest {
+    /**
+     * value = number | string | bool | '[' value (',' value)* ']'
+     */
+    private static class Json {
+        static final Matcher value = oneOf(
+            range('0', '9').many1().profile("number"),
+            ch('"').and(not('"').many()).and('"').profile("string"),
+            str("true").or(str("false")).profile("bool"),
+            seq(ch('['), lazy(() -> Json.value), ch(',').and(lazy(() -> Json.value)).many(), ch(']')).profile("array")
+        );
+    }
+
+    private static Map<String, Long> invocations(Matcher m, String s) {
+        MatchContext ctx = new MatchContext();
+        Profiler profiler = new Profiler();
+        ctx.setProfiler(profiler);
+        assertTrue(m.match(s, ctx));
+        return profiler.flat().stream().collect(Collectors.toMap(Profiler.Stats::name, Profiler.Stats::invocations));
+    }
+
+    @Test
+    public void testSkipAlternatives() {
+        assertInstanceOf(DispatchMatcher.class, Json.value);
+        assertEquals(Map.of("number", 1L), invocations(Json.value, "123"));
+        assertEquals(Map.of("bool", 1L), invocations(Json.value, "false"));
+        assertEquals(Map.of("array", 1L, "number", 2L, "string", 1L),
+            invocations(Json.value, "[1,\"a\",2]"));
+        assertFalse(Json.value.match("[1,]"));
+        assertFalse(Json.value.match(""));
+    }
+
+    @Test
+    public void testNullableAlternative() {
+        // 可以匹配空串的分支在任何字符和输入末尾都要尝试
+        Matcher m = oneOf(ch('a').profile("a"), ch('b').many().profile("b*"), ch('c').profile("c"));
+        assertEquals(Map.of("b*", 1L), invocations(m, ""));
+        assertEquals(Map.of("b*", 1L, "c", 1L), invocations(m, "c"));
+        // 与or相同，到达输入末尾后不再尝试后面的分支
+        assertEquals(Map.of("a", 1L), invocations(m, "a"));
+        assertEquals(Set.of(0), m.parse("x", 0));
+    }
+
+    @Test
+    public void testLazyAlternative() {
+        // 分派表在第一次解析时才构建，创建oneOf时lazy的目标可以尚未确定
+        Matcher[] holder = new Matcher[1];
+        Matcher m = oneOf(lazy(() -> holder[0]), ch('z'));
+        holder[0] = ch('a').and(ch('b').many());
+        assertTrue(m.match("abb"));
+        assertTrue(m.match("z"));
+        assertFalse(m.match("b"));
+        assertEquals(Set.of(1, 2, 3), m.parse("abb", 0));
+    }
+
+    @Test
+    public void testSameResult() {
+        Matcher[] alternatives = {
+            ch('a').and(ch('b').many()),
+            ch('a').and('b'),
+            str("ab").and(ch('a')),
+            ch('b').or(ch('a')).many(),
+            range('一', '龥').many1(),
+            begin.and(ch('一')),
+            ch(c -> c == 'b' || c == '丁'),
+            end
+        };
+        Matcher dispatch = oneOf(alternatives[0], alternatives[1], alternatives);
+        Matcher or = alternatives[0].or(alternatives[1]);
+        for (Matcher m : alternatives) {
+            or = or.or(m);
+        }
+
+        String alphabet = "ab一丁";
+        Random random = new Random(42);
+        for (int n = 0; n < 300; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(10);
+            for (int i = 0; i < len; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String s = sb.toString();
+            for (int i = 0; i <= s.length(); i++) {
+                assertEquals(or.parse(s, i), dispatch.parse(s, i), s + " at " + i);
+            }
+            assertEquals(or.match(s), dispatch.match(s), s);
+        }
+    }
+
+    @Test
+    public void testVisitors() {
+        Matcher m = oneOf(ch('a').and(ch('b').many()), ch('c').capture(1), str("dd"));
+        Matcher compiled = m.compile();
+        assertInstanceOf(DfaMatcher.class, compiled);
+        assertTrue(compiled.match("abbb"));
+        assertEquals("c", m.matchResult("c").orElseThrow().group(1));
+        assertEquals(3, m.findAll("xxabbcdd").size());
+        assertTrue(m.optimize() instanceof DispatchMatcher);
+        assertEquals(Analysis.Complexity.LINEAR, m.analyze().complexity());
+        assertEquals(1, oneOf(ch('a'), str("ab"), ch('c').many()).analyze().issues().size());
+    }
+
+    @Test
+    public void testDeepNesting() {
+        // 嵌套层数超过MAX_STACK_DEPTH时由StackEngine继续解析
+        String s = "[".repeat(5000) + "1" + "]".repeat(5000);
+        assertTrue(Json.value.match(s));
+        assertFalse(Json.value.match(s.substring(1)));
+    }
+}
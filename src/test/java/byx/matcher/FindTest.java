@@ -0,0 +1,98 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FindTest {
+    /**
+     * 逐个位置解析的朴素实现
+     */
+    private static int[] bruteForce(Matcher m, String s, int from) {
+        for (int i = from; i <= s.length(); i++) {
+            Set<Integer> r = m.parse(s, i);
+            if (!r.isEmpty()) {
+                return new int[]{i, r.stream().max(Integer::compare).get()};
+            }
+        }
+        return null;
+    }
+
+    private static void assertFind(Matcher m, String s) {
+        for (int from = 0; from <= s.length(); from++) {
+            int[] expected = bruteForce(m, s, from);
+            MatchResult actual = m.find(s, from).orElse(null);
+            if (expected == null) {
+                assertNull(actual);
+            } else {
+                assertNotNull(actual);
+                assertEquals(expected[0], actual.start(), s + " " + from);
+                assertEquals(expected[1], actual.end(), s + " " + from);
+            }
+        }
+    }
+
+    @Test
+    public void testFind() {
+        Matcher m = MatcherParser.parse("[0-9]+");
+        MatchResult r = m.find("abc 123 de 45").orElseThrow();
+        assertEquals(4, r.start());
+        assertEquals(7, r.end());
+        assertEquals("123", r.group());
+        assertEquals("45", m.find("abc 123 de 45", 7).orElseThrow().group());
+        assertTrue(m.find("abc").isEmpty());
+    }
+
+    @Test
+    public void testLeftmostLongest() {
+        String text = "xxabcdyyabcabcdzz";
+        for (String expr : new String[]{"abcd|c", "c|abcd", "(ab)*c", "a*", "b(c|cd)", "(a|b|c|d)+", "z", "q*z+"}) {
+            assertFind(MatcherParser.parse(expr), text);
+            assertFind(MatcherParser.compile(expr), text);
+        }
+    }
+
+    @Test
+    public void testNonRegular() {
+        Matcher word = range('a', 'z').many1();
+        Matcher m = word.flatMap(w -> ch('=').and(str(w)));
+        assertFind(m, "a=b foo=foo x=xx=x");
+        assertEquals("foo=foo", m.find("a=b foo=foo x=xx=x").orElseThrow().group());
+
+        assertFind(BracketMatcher.expr, "a(()b(())()c)");
+    }
+
+    @Test
+    public void testLiteralPrefix() {
+        Matcher m = str("ERROR").and(':').and(not('\n').many());
+        String log = "INFO: ok\nERROR: disk full\nWARN: slow\nERROR: timeout";
+        List<String> errors = m.findAll(log).stream().map(MatchResult::group).toList();
+        assertEquals(List.of("ERROR: disk full", "ERROR: timeout"), errors);
+        assertFind(m, log);
+        assertFind(str("ab").and(ch('c').many()).flatMap(s -> str("")), "xabababccab");
+    }
+
+    @Test
+    public void testFindAll() {
+        Matcher m = MatcherParser.compile("[0-9]+");
+        List<String> numbers = m.findAll("a1b22c333").stream().map(MatchResult::group).toList();
+        assertEquals(List.of("1", "22", "333"), numbers);
+
+        List<MatchResult> empty = ch('x').many().findAll("ab");
+        assertEquals(3, empty.size());
+        assertEquals(2, empty.get(2).start());
+    }
+
+    @Test
+    public void testSplit() {
+        Matcher comma = ch(' ').many().and(',').and(ch(' ').many());
+        assertEquals(List.of("a", "b", "c"), comma.split("a , b,c"));
+        assertEquals(List.of("", "a", ""), comma.split(",a,"));
+        assertEquals(List.of("abc"), comma.split("abc"));
+        assertEquals(List.of("a", "b"), ch(' ').many().split("a b"));
+    }
+}
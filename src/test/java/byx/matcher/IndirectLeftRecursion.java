@@ -0,0 +1,15 @@
+package byx.matcher;
+
+import static byx.matcher.Matcher.*;
+
+/**
+ * 间接左递归
+ * a = b 'x' | 'y'
+ * b = a 'z' | a
+ */
+class IndirectLeftRecursion {
+    static final Matcher a = lazy(() -> IndirectLeftRecursion.aBody);
+    static final Matcher b = lazy(() -> IndirectLeftRecursion.bBody);
+    private static final Matcher aBody = b.and('x').or('y');
+    private static final Matcher bBody = a.and('z').or(a);
+}
@@ -0,0 +1,85 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InputsTest {
+    @Test
+    public void testCharSequence() {
+        Matcher m = ch('a').and(str("mn").or("xy")).and(range('0', '9').many1());
+        assertTrue(m.match(new StringBuilder("amn12345")));
+        assertTrue(m.match(CharBuffer.wrap("axy123")));
+        assertFalse(m.match(CharBuffer.wrap("axy123".toCharArray(), 0, 3)));
+        assertTrue(m.compile().match(CharBuffer.wrap("axy123")));
+    }
+
+    @Test
+    public void testAscii() {
+        byte[] bytes = "xxamn123yy".getBytes(StandardCharsets.US_ASCII);
+        ByteBuffer buf = ByteBuffer.wrap(bytes, 2, 6);
+        CharSequence s = Inputs.ascii(buf);
+        assertEquals(6, s.length());
+        assertEquals("amn123", s.toString());
+        assertEquals("mn", s.subSequence(1, 3).toString());
+        assertTrue(ch('a').and(str("mn")).and(range('0', '9').many1()).match(s));
+    }
+
+    @Test
+    public void testUtf8() {
+        String str = "héllo, 世界 😀!".repeat(50);
+        CharSequence s = Inputs.utf8(ByteBuffer.wrap(str.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(str.length(), s.length());
+        assertEquals(str, s.toString());
+
+        // 倒序随机访问
+        for (int i = str.length() - 1; i >= 0; i -= 7) {
+            assertEquals(str.charAt(i), s.charAt(i), "index " + i);
+        }
+        assertEquals(str.substring(100, 200), s.subSequence(100, 200).toString());
+
+        Matcher word = not(' ').many1();
+        Matcher m = word.and(ch(' ').and(word).many());
+        assertTrue(m.match(s));
+        assertTrue(m.compile().match(s));
+    }
+
+    @Test
+    public void testMalformedUtf8() {
+        byte[] bytes = {'a', (byte) 0xC3, 'b', (byte) 0xE4, (byte) 0xB8};
+        CharSequence s = Inputs.utf8(ByteBuffer.wrap(bytes));
+        assertEquals("a�b��", s.toString());
+    }
+
+    @Test
+    public void testMappedFile() throws IOException {
+        Path file = Files.createTempFile("matcher", ".json");
+        try {
+            Files.writeString(file, "{\"名字\": \"小明\", \"age\": 18}", StandardCharsets.UTF_8);
+            CharSequence s = Inputs.mapUtf8(file);
+            Matcher m = ch('{').and(any.many()).and('}');
+            assertTrue(m.match(s));
+            assertEquals('名', s.charAt(2));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testFlatMapView() {
+        Matcher m = not(' ').many1().flatMapView(s -> {
+            assertFalse(s instanceof String);
+            return ch(' ').and(str(s.toString()));
+        });
+        assertTrue(m.match("abc abc"));
+        assertFalse(m.match("abc abd"));
+    }
+}
@@ -0,0 +1,58 @@
+package byx.matcher;
+
+import static byx.matcher.Matcher.*;
+
+/**
+ * json字符串校验
+ * jsonObj = number | string | bool | arr | obj
+ * number  = integer | decimal
+ * integer = [0-9]+
+ * decimal = [0-9]+ '.' [0-9]+
+ * string  = '"' (.*) '"'
+ * bool    = "true" | "false"
+ * arr     = "[]"
+ *         | '[' jsonObj (',' jsonObj)* ']'
+ * field   = string ':' jsonObj
+ * obj     = "{}"
+ *         | '{' field (',' field)* '}'
+ */
+class JsonValidator {
+    private static final Matcher blank = chs(' ', '\t', '\n', '\r').many();
+    private static final Matcher objStart = withBlank(ch('{'));
+    private static final Matcher objEnd = withBlank(ch('}'));
+    private static final Matcher arrStart = withBlank(ch('['));
+    private static final Matcher arrEnd = withBlank(ch(']'));
+    private static final Matcher colon = withBlank(ch(':'));
+    private static final Matcher comma = withBlank(ch(','));
+
+    private static final Matcher jsonObj = oneOf(
+        lazy(() -> JsonValidator.number),
+        lazy(() -> JsonValidator.string),
+        lazy(() -> JsonValidator.bool),
+        lazy(() -> JsonValidator.arr),
+        lazy(() -> JsonValidator.obj)
+    );
+    private static final Matcher digits = range('0', '9').many1();
+    private static final Matcher integer = digits;
+    private static final Matcher decimal = seq(digits, ch('.'), digits);
+    private static final Matcher number = integer.or(decimal);
+    private static final Matcher string = seq(ch('"'), not('"').many(), ch('"'));
+    private static final Matcher bool = strs("true", "false");
+    private static final Matcher arr = oneOf(
+        arrStart.and(arrEnd),
+        seq(arrStart, jsonObj.and(comma.and(jsonObj).many()), arrEnd)
+    );
+    private static final Matcher field = seq(string, colon, jsonObj);
+    private static final Matcher obj = oneOf(
+        objStart.and(objEnd),
+        seq(objStart, field.and(comma.and(field).many()), objEnd)
+    );
+
+    private static Matcher withBlank(Matcher m) {
+        return seq(blank, m, blank);
+    }
+
+    public static boolean isValidJson(String s) {
+        return jsonObj.match(s);
+    }
+}
@@ -0,0 +1,68 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LeftRecursionTest {
+    @Test
+    public void testDirect() {
+        Matcher expr = LeftRecursiveArithmetic.expr;
+        for (MatchContext ctx : new MatchContext[]{new MatchContext(), MatchContext.memoized()}) {
+            assertTrue(expr.match("1", ctx));
+            assertTrue(expr.match("1+2*3-4/5", ctx));
+            assertTrue(expr.match("(1+2)*(3-(4))", ctx));
+            assertFalse(expr.match("1+", ctx));
+            assertFalse(expr.match("+1", ctx));
+            assertFalse(expr.match("(1+2", ctx));
+            assertEquals(Set.of(1, 3, 5), expr.parse("1+2*3", 0));
+        }
+    }
+
+    @Test
+    public void testIndirect() {
+        Matcher a = IndirectLeftRecursion.a;
+        for (MatchContext ctx : new MatchContext[]{new MatchContext(), MatchContext.memoized()}) {
+            assertTrue(a.match("y", ctx));
+            assertTrue(a.match("yx", ctx));
+            assertTrue(a.match("yzx", ctx));
+            assertTrue(a.match("yzxxzx", ctx));
+            assertFalse(a.match("yz", ctx));
+            assertFalse(a.match("x", ctx));
+        }
+    }
+
+    @Test
+    public void testSameAsIterative() {
+        Random random = new Random(3);
+        String alphabet = "12+*()";
+        for (int n = 0; n < 500; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = 1 + random.nextInt(10);
+            for (int i = 0; i < len; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String s = sb.toString();
+            boolean expected = ArithmeticExprValidator.isValidExpr(s);
+            assertEquals(expected, LeftRecursiveArithmetic.expr.match(s), s);
+            assertEquals(expected, LeftRecursiveArithmetic.expr.match(s, MatchContext.memoized()), s);
+        }
+    }
+
+    @Test
+    public void testPolynomial() {
+        StringBuilder sb = new StringBuilder("1");
+        for (int i = 0; i < 2000; i++) {
+            sb.append(i % 2 == 0 ? "+" : "*").append(i % 10);
+        }
+        String s = sb.toString();
+        MatchContext ctx = MatchContext.memoized();
+        assertTrue(LeftRecursiveArithmetic.expr.match(s, ctx));
+        assertFalse(LeftRecursiveArithmetic.expr.match(s + "+", ctx));
+        assertTrue(ctx.memoMisses() < 100L * s.length());
+    }
+}
@@ -0,0 +1,17 @@
+package byx.matcher;
+
+import static byx.matcher.Matcher.*;
+
+/**
+ * 左递归的算数表达式
+ * expr = expr ('+'|'-') term | term
+ * term = term ('*'|'/') fact | fact
+ * fact = [0-9]+ | '(' expr ')'
+ */
+class LeftRecursiveArithmetic {
+    static final Matcher expr = lazy(() -> LeftRecursiveArithmetic.exprBody);
+    static final Matcher term = lazy(() -> LeftRecursiveArithmetic.termBody);
+    static final Matcher fact = range('0', '9').many1().or(ch('(').and(expr).and(')'));
+    private static final Matcher exprBody = expr.and(chs('+', '-')).and(term).or(term);
+    private static final Matcher termBody = term.and(chs('*', '/')).and(fact).or(fact);
+}
@@ -0,0 +1,51 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import static byx.matcher.Matcher.*;
+import static byx.matcher.MatchSession.Status.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatchSessionTest {
+    @Test
+    public void testStatus() {
+        MatchSession session = ch('a').and(str("mn").or("xy")).and(range('0', '9').many1()).session();
+        assertTrue(session.isBounded());
+        assertEquals(NEED_MORE, session.status());
+        assertEquals(NEED_MORE, session.feed("am").status());
+        assertEquals(NEED_MORE, session.feed('n').status());
+        assertEquals(ACCEPT, session.feed("12").status());
+        assertEquals(ACCEPT, session.feed("345").status());
+        assertEquals(REJECT, session.feed("x").status());
+        assertEquals(REJECT, session.feed("123").status());
+        assertEquals(12, session.position());
+
+        session.reset();
+        assertEquals(0, session.position());
+        assertEquals(ACCEPT, session.feed("axy0").status());
+    }
+
+    @Test
+    public void testChunks() {
+        Matcher m = MatcherParser.compile("(0|1(01*0)*1)*");
+        String s = "111010010101011001000001110011010111101110101111101110110";
+        for (int chunk = 1; chunk <= 8; chunk++) {
+            MatchSession session = m.session();
+            for (int i = 0; i < s.length(); i += chunk) {
+                session.feed(s.subSequence(i, Math.min(s.length(), i + chunk)));
+                assertEquals(m.match(s.substring(0, Math.min(s.length(), i + chunk))), session.isAccepted());
+            }
+            assertTrue(session.isAccepted());
+        }
+    }
+
+    @Test
+    public void testUnbounded() {
+        MatchSession session = BracketMatcher.expr.session();
+        assertFalse(session.isBounded());
+        assertEquals(NEED_MORE, session.feed("((").status());
+        assertEquals(NEED_MORE, session.feed(")").status());
+        assertEquals(ACCEPT, session.feed(")").status());
+        assertEquals(ACCEPT, session.feed("()").status());
+    }
+}
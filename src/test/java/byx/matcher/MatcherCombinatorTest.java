@@ -1,6 +1,8 @@
 package byx.matcher;
 
 import org.junit.jupiter.api.Test;
+
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static byx.matcher.Matcher.*;
@@ -181,6 +183,30 @@ public class MatcherCombinatorTest {
         assertFalse(m.match("aa"));
     }
 
+    @Test
+    public void testRepeatLargeTimes() {
+        AtomicInteger count = new AtomicInteger();
+        Matcher a = ch(c -> {
+            count.incrementAndGet();
+            return c == 'a';
+        });
+
+        // 位置集合为空后立即结束
+        assertFalse(a.repeat(1000000).match("aaa"));
+        assertEquals(3, count.get());
+
+        // 可空的循环体到达不动点后不再继续应用
+        count.set(0);
+        Matcher m = a.repeat(0, 1).repeat(100000, 100000);
+        assertTrue(m.match("aaa"));
+        assertTrue(m.match(""));
+        assertFalse(m.match("aab"));
+        assertTrue(count.get() < 100);
+
+        Matcher n = a.repeat(0, 2).repeat(1000, 2000);
+        assertEquals(Set.of(0, 1, 2, 3, 4, 5), n.parse("aaaaa", 0));
+    }
+
     @Test
     public void testMany() {
         Matcher m = ch('a').many();
@@ -249,4 +275,82 @@ public class MatcherCombinatorTest {
         assertTrue(m.match("a"));
         assertEquals(456, i.get());
     }
+
+    @Test
+    public void testParse() {
+        Matcher m = ch('a').many().and(ch('a').or(str("ab")));
+        assertEquals(Set.of(1, 2, 3, 4), m.parse("aaab", 0));
+        assertEquals(Set.of(2, 3, 4), m.parse("aaab", 1));
+        assertEquals(Set.of(), m.parse("aaab", 3));
+
+        PositionSet result = new PositionSet();
+        m.parse("aaab", 0, result);
+        assertEquals(PositionSet.of(1, 2, 3, 4), result);
+    }
+
+    @Test
+    public void testShortCircuit() {
+        AtomicInteger count = new AtomicInteger();
+        Matcher counter = lazy(() -> {
+            count.incrementAndGet();
+            return str("abc");
+        });
+
+        Matcher m = str("abc").or(counter);
+        assertTrue(m.match("abc"));
+        assertEquals(0, count.get());
+        assertFalse(m.match("ab"));
+        assertEquals(1, count.get());
+
+        // 末尾可达后不再继续展开many
+        count.set(0);
+        m = lazy(() -> {
+            count.incrementAndGet();
+            return ch('a');
+        }).many();
+        assertTrue(m.match("aaa"));
+        assertEquals(3, count.get());
+        count.set(0);
+        assertEquals(Set.of(0, 1, 2, 3), m.parse("aaa", 0));
+        assertEquals(4, count.get());
+    }
+
+    @Test
+    public void testFurthestPosition() {
+        Matcher digits = range('0', '9').many1();
+        Matcher m = digits.and(chs('+', '-').and(digits).many());
+        MatchContext ctx = new MatchContext();
+        assertFalse(m.match("12+34-x6", ctx));
+        assertEquals(6, ctx.furthestPosition());
+        assertTrue(m.match("12+34", ctx));
+        assertEquals(5, ctx.furthestPosition());
+
+        m = str("true").or(str("false"));
+        assertFalse(m.match("fals", ctx));
+        assertEquals(4, ctx.furthestPosition());
+        assertFalse(m.compile().match("trux", ctx));
+        assertEquals(3, ctx.furthestPosition());
+    }
+
+    @Test
+    public void testCustomMatcher() {
+        // 旧版本中实现parse(String, int)的自定义Matcher
+        Matcher skip = Matcher.of((s, i) -> i + 2 <= s.length() ? Set.of(i + 1, i + 2) : i < s.length() ? Set.of(i + 1) : Set.of());
+        assertEquals(Set.of(1, 2), skip.parse("abc", 0));
+        assertTrue(skip.match("ab"));
+        assertFalse(skip.match("abc"));
+        assertFalse(skip.match(""));
+
+        Matcher m = ch('x').and(skip).and(ch('y'));
+        assertTrue(m.match("xay"));
+        assertTrue(m.match("xaby"));
+        assertFalse(m.match("xabcy"));
+        assertFalse(m.match("xy"));
+        assertTrue(m.many().match("xayxbby"));
+        assertSame(m, m.compile());
+
+        MatchContext ctx = new MatchContext();
+        assertFalse(ch('x').and(skip).and(ch('y')).match("xab", ctx));
+        assertEquals(3, ctx.furthestPosition());
+    }
 }
@@ -2,10 +2,13 @@ package byx.matcher;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
 import java.util.Objects;
 import java.util.Scanner;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class MatcherParserTest {
@@ -362,6 +365,114 @@ public class MatcherParserTest {
         assertFalse(m.match("a".repeat(1000) + "b"));
     }
 
+    @Test
+    public void testOptional() {
+        Matcher m = MatcherParser.parse("colou?r");
+        assertTrue(m.match("color"));
+        assertTrue(m.match("colour"));
+        assertFalse(m.match("colouur"));
+        assertFalse(m.match("colr"));
+    }
+
+    @Test
+    public void testCountedRepeat() {
+        Matcher m = MatcherParser.parse("a{3}");
+        assertTrue(m.match("aaa"));
+        assertFalse(m.match("aa"));
+        assertFalse(m.match("aaaa"));
+
+        m = MatcherParser.parse("a{2,}");
+        assertFalse(m.match("a"));
+        assertTrue(m.match("aa"));
+        assertTrue(m.match("a".repeat(100)));
+
+        m = MatcherParser.parse("(ab){1,3}c");
+        assertFalse(m.match("c"));
+        assertTrue(m.match("abc"));
+        assertTrue(m.match("abababc"));
+        assertFalse(m.match("ababababc"));
+
+        // 计数重复编译成一个repeat节点，而不是展开成多个副本
+        assertEquals("[a]{2,1000}", MatcherParser.parse("a{2,1000}").toString());
+        assertEquals("[a]{0,1}", MatcherParser.parse("a?").toString());
+        assertTrue(MatcherParser.compile("[0-9]{1,1000}").match("1".repeat(1000)));
+
+        assertThrows(RuntimeException.class, () -> MatcherParser.parse("a{3,2}"));
+        assertThrows(RuntimeException.class, () -> MatcherParser.parse("a{,2}"));
+        assertThrows(RuntimeException.class, () -> MatcherParser.parse("a{2"));
+
+        // 超出int范围的次数报告为非法的重复次数，而不是NumberFormatException
+        for (String expr : List.of("a{99999999999}", "a{1,99999999999}", "a{2147483647}")) {
+            RuntimeException e = assertThrows(RuntimeException.class, () -> MatcherParser.parse(expr));
+            assertEquals(RuntimeException.class, e.getClass(), expr);
+            assertTrue(e.getMessage().startsWith("illegal repetition count"), expr);
+        }
+        assertEquals("[a]{2147483646}", MatcherParser.parse("a{2147483646}").toString());
+    }
+
+    @Test
+    public void testNegatedClass() {
+        Matcher m = MatcherParser.parse("[^a-c]");
+        assertTrue(m.match("d"));
+        assertTrue(m.match("^"));
+        assertFalse(m.match("a"));
+        assertFalse(m.match("c"));
+        assertFalse(m.match(""));
+
+        m = MatcherParser.parse("\"[^\"]*\"");
+        assertTrue(m.match("\"hello world\""));
+        assertFalse(m.match("\"a\"b\""));
+
+        m = MatcherParser.parse("[a^-]+");
+        assertTrue(m.match("a^-"));
+        assertFalse(m.match("b"));
+    }
+
+    @Test
+    public void testPredefinedClasses() {
+        Matcher m = MatcherParser.parse("\\d+\\s\\w+");
+        assertTrue(m.match("123 abc_9"));
+        assertTrue(m.match("0\tA"));
+        assertFalse(m.match("12  ab"));
+        assertFalse(m.match("a1 b"));
+        assertFalse(m.match("1 a-b"));
+
+        m = MatcherParser.parse("\\D\\W\\S");
+        assertTrue(m.match("a-b"));
+        assertFalse(m.match("1-b"));
+        assertFalse(m.match("a_b"));
+        assertFalse(m.match("a- "));
+
+        m = MatcherParser.parse("[\\d.]+");
+        assertTrue(m.match("3.14"));
+        assertFalse(m.match("3,14"));
+        assertEquals("[0-9]", MatcherParser.parse("\\d").toString());
+
+        // 其他转义字符仍表示字符本身
+        assertTrue(MatcherParser.parse("\\n\\t\\r").match("ntr"));
+        assertFalse(MatcherParser.parse("\\n").match("\n"));
+    }
+
+    @Test
+    public void testAnchors() {
+        Matcher m = MatcherParser.parse("^ab$");
+        assertTrue(m.match("ab"));
+        assertFalse(m.match("abab"));
+
+        m = MatcherParser.parse("^a+");
+        assertEquals("aa", m.find("aab").orElseThrow().group());
+        assertTrue(m.find("baa").isEmpty());
+
+        m = MatcherParser.parse("b+$");
+        assertEquals(2, m.find("bab").orElseThrow().start());
+        assertTrue(m.find("bba").isEmpty());
+
+        m = MatcherParser.parse("a^b");
+        assertFalse(m.match("ab"));
+        m = MatcherParser.parse("a|^b");
+        assertEquals(List.of("b", "a"), m.findAll("bab").stream().map(MatchResult::group).toList());
+    }
+
     @Test
     public void testFileCases() {
         // 测试数据来源：https://loj.ac/p/118
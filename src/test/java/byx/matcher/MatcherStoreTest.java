@@ -0,0 +1,158 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MatcherStoreTest {
+    private static final List<String> EXPRS = List.of(
+        "(a|b)*abb",
+        "[a-z]+@[a-z]+\\.com",
+        "a*",
+        "(ab|a)(bc|c)?",
+        "[一-龥]+[0-9]*",
+        "[^a]b+"
+    );
+
+    private static final Matcher NESTED = ch('(').and(lazy(() -> MatcherStoreTest.NESTED)).and(ch(')')).or(ch('x'));
+
+    private static MatcherStore store(Map<String, ? extends Matcher> matchers) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatcherStore.write(matchers, out);
+        return MatcherStore.of(ByteBuffer.wrap(out.toByteArray()));
+    }
+
+    @Test
+    public void testSaveAndLoad(@TempDir Path dir) throws IOException {
+        Map<String, Matcher> matchers = new LinkedHashMap<>();
+        for (String expr : EXPRS) {
+            matchers.put(expr, MatcherParser.parse(expr));
+        }
+        Path file = dir.resolve("matchers.bin");
+        MatcherStore.save(matchers, file);
+        MatcherStore store = MatcherStore.load(file);
+
+        assertEquals(EXPRS.size(), store.size());
+        assertEquals(EXPRS.stream().sorted().toList(),
+            IntStream.range(0, store.size()).mapToObj(store::name).toList());
+        assertTrue(store.get("(a|b)*abb").orElseThrow().match("ababb"));
+        assertFalse(store.get("(a|b)*abb").orElseThrow().match("abab"));
+        assertTrue(store.get("[a-z]+@[a-z]+\\.com").orElseThrow().match("byx@test.com"));
+        assertEquals(Optional.empty(), store.get("b*"));
+        assertEquals(Optional.empty(), store.get(""));
+    }
+
+    @Test
+    public void testSameResult() throws IOException {
+        Map<String, Matcher> matchers = new LinkedHashMap<>();
+        for (String expr : EXPRS) {
+            matchers.put(expr, MatcherParser.parse(expr));
+        }
+        MatcherStore store = store(matchers);
+
+        String alphabet = "abc@.m一丁9x";
+        Random random = new Random(42);
+        for (String expr : EXPRS) {
+            Matcher expected = matchers.get(expr);
+            Matcher stored = store.get(expr).orElseThrow();
+            for (int n = 0; n < 200; n++) {
+                StringBuilder sb = new StringBuilder();
+                int len = random.nextInt(10);
+                for (int i = 0; i < len; i++) {
+                    sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+                }
+                String s = sb.toString();
+                assertEquals(expected.match(s), stored.match(s), expr + " on " + s);
+                for (int i = 0; i <= s.length(); i++) {
+                    assertEquals(expected.parse(s, i), stored.parse(s, i), expr + " on " + s + " at " + i);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCombinators() throws IOException {
+        Matcher m = range('0', '9').many1().and(ch('.').and(range('0', '9').many1()).repeat(0, 1));
+        MatcherStore store = store(Map.of("number", m, "empty", str("").and(range('a', 'z').repeat(0))));
+        Matcher number = store.get("number").orElseThrow();
+        assertTrue(number.match("3.14"));
+        assertFalse(number.match("3."));
+        assertEquals(2, number.findAll("x1.5y23").size());
+        assertEquals(Analysis.Complexity.LINEAR, number.analyze().complexity());
+        assertTrue(number.analyze().isRegular());
+
+        // 保存后的Matcher可以继续组合
+        Matcher list = number.and(ch(',').and(number).many());
+        assertTrue(list.match("1,2.5,3"));
+        assertFalse(list.match("1,,3"));
+
+        Matcher empty = store.get("empty").orElseThrow();
+        assertTrue(empty.match(""));
+        assertFalse(empty.match("a"));
+    }
+
+    @Test
+    public void testNotRegular() {
+        assertThrows(IllegalArgumentException.class, () -> store(Map.of("nested", NESTED)));
+        assertThrows(IllegalArgumentException.class, () -> store(Map.of("pred", ch(c -> c % 2 == 0))));
+        assertThrows(IllegalArgumentException.class, () -> store(Map.of("flatMap", ch('a').flatMap(Matcher::str))));
+    }
+
+    @Test
+    public void testBadInput() {
+        assertThrows(IllegalArgumentException.class, () -> MatcherStore.of(ByteBuffer.wrap(new byte[16])));
+        assertThrows(IllegalArgumentException.class, () -> MatcherStore.of(ByteBuffer.allocate(4)));
+    }
+
+    @Test
+    public void testCorruptInput() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        MatcherStore.write(Map.of("(a|b)*abb", MatcherParser.parse("(a|b)*abb"), "x", MatcherParser.parse("x")), out);
+        byte[] bytes = out.toByteArray();
+
+        // 名称排序后"x"为第二个条目，其DFA位于文件末尾，之后只有对齐用的填充
+        ByteBuffer b = ByteBuffer.wrap(bytes.clone());
+        int dfa = b.getInt(12 + 12 + 8);
+        int table = dfa + 12 + 2 * 128 + 4 * b.getInt(dfa + 8) + (b.getInt(dfa) + 1) / 2 * 2;
+        int length = table + 2 * b.getInt(dfa) * b.getInt(dfa + 4);
+
+        // 在数据范围内的任何位置截断都只会抛出IllegalArgumentException
+        for (int n = 0; n < length; n++) {
+            ByteBuffer buf = ByteBuffer.wrap(bytes, 0, n);
+            try {
+                MatcherStore store = MatcherStore.of(buf);
+                store.get("(a|b)*abb").ifPresent(m -> m.match("abb"));
+                store.get("x").ifPresent(m -> m.match("x"));
+            } catch (IllegalArgumentException e) {
+                continue;
+            }
+            fail("truncated at " + n);
+        }
+
+        // 条目个数超出文件
+        byte[] copy = bytes.clone();
+        ByteBuffer.wrap(copy).putInt(8, 1000);
+        assertThrows(IllegalArgumentException.class, () -> MatcherStore.of(ByteBuffer.wrap(copy)));
+        ByteBuffer.wrap(copy).putInt(8, -1);
+        assertThrows(IllegalArgumentException.class, () -> MatcherStore.of(ByteBuffer.wrap(copy)));
+
+        // 转移表引用不存在的状态
+        b.putChar(table, (char) 1000);
+        MatcherStore store = MatcherStore.of(b);
+        assertTrue(store.get("(a|b)*abb").orElseThrow().match("abb"));
+        assertThrows(IllegalArgumentException.class, () -> store.get("x"));
+    }
+}
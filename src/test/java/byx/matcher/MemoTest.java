@@ -0,0 +1,84 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 每层括号都有两个共享前缀的分支，不开启记忆化时解析时间随嵌套深度指数增长
+ * expr = '(' expr ')'
+ *      | '(' expr ']'
+ *      | 'x'
+ */
+class AmbiguousBracketMatcher {
+    static final Matcher expr = oneOf(
+        ch('(').and(lazy(() -> AmbiguousBracketMatcher.expr)).and(')'),
+        ch('(').and(lazy(() -> AmbiguousBracketMatcher.expr)).and(']'),
+        ch('x')
+    );
+}
+
+public class MemoTest {
+    @Test
+    public void testMemoized() {
+        Matcher m = AmbiguousBracketMatcher.expr;
+        String s = "(".repeat(30) + "x" + ")]".repeat(15);
+
+        MatchContext ctx = MatchContext.memoized();
+        assertTrue(ctx.isMemoized());
+        assertTrue(m.match(s, ctx));
+        assertTrue(ctx.memoHits() > 0);
+        assertTrue(ctx.memoMisses() <= 2L * s.length());
+
+        assertFalse(m.match("(".repeat(30) + "x" + ")".repeat(29), ctx));
+        assertFalse(m.match("(".repeat(30) + "x" + ")".repeat(31), ctx));
+    }
+
+    @Test
+    public void testSameResult() {
+        Matcher m = AmbiguousBracketMatcher.expr;
+        String[] inputs = {"x", "(x)", "(x]", "((x)]", "((x)", "(x))", "", "()"};
+        for (String s : inputs) {
+            assertEquals(m.match(s), m.match(s, MatchContext.memoized()));
+        }
+    }
+
+    @Test
+    public void testMemo() {
+        Matcher digits = range('0', '9').many1().memo();
+        Matcher m = digits.and('+').and(digits).or(digits.and('-').and(digits));
+        MatchContext ctx = MatchContext.memoized();
+        assertTrue(m.match("12-34", ctx));
+        assertEquals(1, ctx.memoHits());
+        assertFalse(m.match("12*34", ctx));
+        assertTrue(m.match("12+34"));
+    }
+
+    @Test
+    public void testNotMemoized() {
+        MatchContext ctx = new MatchContext();
+        assertFalse(ctx.isMemoized());
+        assertTrue(AmbiguousBracketMatcher.expr.match("((x)]", ctx));
+        assertEquals(0, ctx.memoHits());
+        assertEquals(0, ctx.memoMisses());
+        assertEquals(0, ctx.memoSize());
+    }
+
+    @Test
+    public void testMemoTableRemove() {
+        MemoTable<Integer> table = new MemoTable<>();
+        Matcher[] keys = {ch('a'), ch('b'), ch('c')};
+        for (int i = 0; i < 300; i++) {
+            table.put(keys[i % 3], i, i);
+        }
+        for (int i = 0; i < 300; i += 2) {
+            table.remove(keys[i % 3], i);
+        }
+        table.remove(keys[0], 1000);
+        assertEquals(150, table.size());
+        for (int i = 0; i < 300; i++) {
+            assertEquals(i % 2 == 0 ? null : i, table.get(keys[i % 3], i));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.Set;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OptimizerTest {
+    private static int countNodes(Matcher m) {
+        if (m instanceof AndMatcher and) {
+            return 1 + countNodes(and.lhs) + countNodes(and.rhs);
+        } else if (m instanceof OrMatcher or) {
+            return 1 + countNodes(or.lhs) + countNodes(or.rhs);
+        } else if (m instanceof RepeatMatcher r) {
+            return 1 + countNodes(r.matcher);
+        } else if (m instanceof MemoMatcher memo) {
+            return 1 + countNodes(memo.matcher);
+        } else if (m instanceof DispatchMatcher d) {
+            return countNodes(d.source);
+        }
+        return 1;
+    }
+
+    /**
+     * 在随机输入的每个位置上比较化简前后的解析结果
+     */
+    private static void assertSameResult(Matcher m, String alphabet) {
+        Matcher opt = m.optimize();
+        Random random = new Random(42);
+        for (int n = 0; n < 300; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(12);
+            for (int i = 0; i < len; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String s = sb.toString();
+            for (int i = 0; i <= s.length(); i++) {
+                assertEquals(m.parse(s, i), opt.parse(s, i), m + " " + s + " " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testMergeLiterals() {
+        Matcher m = ch('a').and('b').and("cd").and(str("")).and('e');
+        assertEquals("\"abcde\"", m.optimize().toString());
+        assertEquals("(\"ab\" [0-9]+)", str("a").and(ch('b')).and(range('0', '9').many1()).optimize().toString());
+        assertEquals("\"\"", str("").and(str("")).optimize().toString());
+    }
+
+    @Test
+    public void testFoldCharClass() {
+        Matcher m = ch('a').or('b').or(range('0', '9')).or("c");
+        assertEquals("[0-9a-c]", m.optimize().toString());
+        assertEquals("([a-b] | \"xy\")", ch('a').or(str("xy")).or(str("b")).optimize().toString());
+
+        // 所有分支都是空字符集合
+        Matcher none = ch(CharClass.none());
+        assertEquals("[]", none.or(none).optimize().toString());
+        assertFalse(MatcherParser.parse("[^\\s\\S]|[^\\s\\S]").match(""));
+        assertFalse(MatcherParser.parse("x([^\\s\\S]|[^\\s\\S])").match("x"));
+        assertFalse(MatcherParser.compile("a[^\\s\\S]|a[^\\s\\S]").match("a"));
+        assertTrue(MatcherParser.parse("[^\\s\\S]|b|[^\\s\\S]").match("b"));
+        assertSameResult(none.or(none).or(str("ab").and(none)).or(str("ab").and(none)), "ab");
+    }
+
+    @Test
+    public void testFactorPrefix() {
+        Matcher m = str("int").or("interface").or("if").or("for").or("float").optimize();
+        assertEquals("(([i] ((\"nt\" (\"\" | \"erface\")) | [f])) | ([f] (\"or\" | \"loat\")))", m.toString());
+        assertTrue(m.match("interface"));
+        assertTrue(m.match("if"));
+        assertFalse(m.match("inter"));
+
+        Matcher x = range('0', '9').many1();
+        Matcher n = x.and('+').and(x).or(x.and('-').and(x)).optimize();
+        assertInstanceOf(AndMatcher.class, n);
+        assertSame(x, ((AndMatcher) n).lhs);
+        assertEquals("([0-9]+ (([+] [0-9]+) | ([\\-] [0-9]+)))", n.toString());
+    }
+
+    @Test
+    public void testRepeat() {
+        Matcher a = ch('a');
+        assertEquals("[a]*", a.many().many().optimize().toString());
+        assertEquals("[a]*", a.many1().many().optimize().toString());
+        assertEquals("[a]*", a.many().many1().optimize().toString());
+        assertEquals("[a]+", a.many1().many1().optimize().toString());
+        assertEquals("[a]{3,}", a.many1().many(3).optimize().toString());
+        assertEquals("[a]{6}", a.repeat(2).repeat(3).optimize().toString());
+        assertEquals("[a]", a.repeat(1).optimize().toString());
+        assertEquals("\"\"", a.repeat(0).optimize().toString());
+        assertEquals("\"\"", str("").many().optimize().toString());
+
+        // minTimes大于maxTimes时恰好应用minTimes次，与不化简时相同
+        assertEquals(Set.of(2), a.repeat(2, 0).optimize().parse("aa", 0));
+        assertEquals(Set.of(2), a.repeat(2, 0).compile().parse("aa", 0));
+        assertEquals(Set.of(3), a.many1().repeat(3, 1).optimize().parse("aaa", 0));
+        assertSameResult(a.repeat(2, 0), "ab");
+        assertSameResult(a.or(ch('b')).repeat(3, 2), "ab");
+    }
+
+    @Test
+    public void testSameResult() {
+        Matcher a = ch('a'), b = ch('b');
+        assertSameResult(a.many().many(), "ab");
+        assertSameResult(a.many1().repeat(2, 3), "ab");
+        assertSameResult(a.repeat(2).repeat(0, 2), "ab");
+        assertSameResult(a.repeat(2).repeat(3), "ab");
+        assertSameResult(strs("a", "ab", "abb", "b", "ba", ""), "ab");
+        assertSameResult(oneOf(a.and(b.many()), a.and(b), str("ab").and(a), b.or(a).many()), "ab");
+        assertSameResult(seq(a, str(""), b, a.or(b).many(), str("ba")).or(str("abba")), "ab");
+        assertSameResult(a.many().and(b).or(a.many().and(a)).many1(), "ab");
+    }
+
+    @Test
+    public void testShrinkNodes() {
+        Matcher m1 = seq(ch('h'), ch('e'), ch('l'), ch('l'), ch('o')).and(oneOf(ch(' '), ch(','), ch('!')));
+        assertEquals(15, countNodes(m1));
+        assertEquals(3, countNodes(m1.optimize()));
+
+        Matcher m = MatcherParser.parse("abcd|e|f|g");
+        assertEquals("(\"abcd\" | [e-g])", m.toString());
+        assertEquals("(((\"ab\" group1([c])) [d]) | [e-g])", MatcherParser.parse("ab(c)d|e|f|g").toString());
+        assertEquals("((([a-b] | group1([c])) | [d-e]) | \"xy\")", MatcherParser.parse("a|b|(c)|d|e|xy").toString());
+    }
+
+    @Test
+    public void testLazyUntouched() {
+        Matcher m = BracketMatcher.expr.optimize();
+        assertTrue(m.match("(()(()))"));
+        assertFalse(m.match("(()"));
+        Matcher lazy = lazy(() -> ch('a').and('b'));
+        assertSame(lazy, lazy.optimize());
+    }
+}
@@ -0,0 +1,133 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PatternCacheTest {
+    @Test
+    public void testHitAndMiss() {
+        PatternCache cache = new PatternCache(10, 100);
+        AtomicInteger loads = new AtomicInteger();
+        Matcher m1 = cache.get("abc", e -> {
+            loads.incrementAndGet();
+            return str(e);
+        });
+        Matcher m2 = cache.get("abc", e -> {
+            loads.incrementAndGet();
+            return str(e);
+        });
+        assertSame(m1, m2);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.hitCount());
+        assertEquals(1, cache.missCount());
+        assertEquals(1, cache.size());
+        assertEquals(3, cache.weight());
+    }
+
+    @Test
+    public void testLruEviction() {
+        PatternCache cache = new PatternCache(2, 100);
+        Matcher a = cache.get("a", Matcher::str);
+        cache.get("b", Matcher::str);
+        assertSame(a, cache.get("a", Matcher::str));
+        cache.get("c", Matcher::str);
+
+        // b最久未使用，被淘汰
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+        assertSame(a, cache.get("a", Matcher::str));
+        long misses = cache.missCount();
+        cache.get("b", Matcher::str);
+        assertEquals(misses + 1, cache.missCount());
+    }
+
+    @Test
+    public void testWeightLimit() {
+        PatternCache cache = new PatternCache(100, 10);
+        cache.get("aaaa", Matcher::str);
+        cache.get("bbbb", Matcher::str);
+        assertEquals(8, cache.weight());
+        cache.get("cccc", Matcher::str);
+        assertEquals(8, cache.weight());
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+
+        // 超过权重上限的表达式不会被缓存
+        cache.get("x".repeat(11), Matcher::str);
+        assertEquals(2, cache.size());
+
+        cache.invalidateAll();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.weight());
+    }
+
+    @Test
+    public void testFailureNotCached() {
+        PatternCache cache = new PatternCache(10, 100);
+        assertThrows(IllegalStateException.class, () -> cache.get("a", e -> {
+            throw new IllegalStateException();
+        }));
+        assertEquals(0, cache.size());
+        assertNotNull(cache.get("a", Matcher::str));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    public void testSingleFlight() throws Exception {
+        PatternCache cache = new PatternCache(10, 100);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Matcher>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> cache.get("(a|b)*c", e -> {
+                loads.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    throw new RuntimeException(ex);
+                }
+                return MatcherParser.parse(e);
+            })));
+            started.await();
+            for (int i = 0; i < 7; i++) {
+                futures.add(executor.submit(() -> cache.get("(a|b)*c", e -> {
+                    loads.incrementAndGet();
+                    return MatcherParser.parse(e);
+                })));
+            }
+            release.countDown();
+
+            Matcher first = futures.get(0).get();
+            for (Future<Matcher> f : futures) {
+                assertSame(first, f.get());
+            }
+            assertEquals(1, loads.get());
+            assertEquals(1, cache.missCount());
+            assertEquals(7, cache.hitCount());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testMatcherParserCache() {
+        assertSame(MatcherParser.parse("[a-z]+@[a-z]+"), MatcherParser.parse("[a-z]+@[a-z]+"));
+        assertSame(MatcherParser.compile("[a-z]+@[a-z]+"), MatcherParser.compile("[a-z]+@[a-z]+"));
+        assertTrue(MatcherParser.parseCache().hitCount() > 0);
+        assertTrue(MatcherParser.compileCache().hitCount() > 0);
+        assertThrows(RuntimeException.class, () -> MatcherParser.parse("a{2"));
+    }
+}
@@ -0,0 +1,83 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PositionSetTest {
+    @Test
+    public void testAddAndContains() {
+        PositionSet set = new PositionSet();
+        assertTrue(set.isEmpty());
+        assertTrue(set.add(3));
+        assertTrue(set.add(1));
+        assertFalse(set.add(3));
+        assertEquals(2, set.size());
+        assertEquals(3, set.get(0));
+        assertEquals(1, set.get(1));
+        assertTrue(set.contains(1));
+        assertTrue(set.contains(3));
+        assertFalse(set.contains(2));
+    }
+
+    @Test
+    public void testManyElements() {
+        PositionSet set = new PositionSet();
+        for (int i = 0; i < 1000; i += 2) {
+            assertTrue(set.add(i));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertFalse(set.add(i));
+        }
+        assertEquals(500, set.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 0, set.contains(i));
+        }
+    }
+
+    @Test
+    public void testClear() {
+        PositionSet set = new PositionSet();
+        for (int i = 0; i < 100; i++) {
+            set.add(i);
+        }
+        set.clear();
+        assertTrue(set.isEmpty());
+        assertFalse(set.contains(5));
+        assertTrue(set.add(5));
+        assertTrue(set.contains(5));
+    }
+
+    @Test
+    public void testSparseClear() {
+        // 散列表很大而元素很少时只清除占用的槽
+        PositionSet set = new PositionSet();
+        for (int i = 0; i < 10000; i++) {
+            set.add(i);
+        }
+        for (int round = 0; round < 100; round++) {
+            set.clear();
+            for (int i = 0; i < 20; i++) {
+                assertTrue(set.add(i * 4096 + round));
+            }
+            for (int i = 0; i < 20; i++) {
+                assertTrue(set.contains(i * 4096 + round));
+                assertFalse(set.contains(i * 4096 + round + 1));
+            }
+        }
+        set.clear();
+        for (int i = 0; i < 10000; i++) {
+            assertFalse(set.contains(i));
+        }
+    }
+
+    @Test
+    public void testConvert() {
+        PositionSet set = PositionSet.of(5, 2, 9, 2);
+        assertEquals(Set.of(2, 5, 9), set.toSet());
+        assertArrayEquals(new int[]{2, 5, 9}, set.toSortedArray());
+        assertEquals(PositionSet.of(9, 5, 2), set);
+    }
+}
@@ -0,0 +1,129 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ProfilerTest {
+    private static Profiler.Stats find(List<Profiler.Stats> stats, String name) {
+        return stats.stream().filter(s -> s.name().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void testCounts() {
+        Matcher a = ch('a').profile("a");
+        Matcher m = a.many().profile("many").and(ch('b')).profile("root");
+        MatchContext ctx = new MatchContext();
+        Profiler profiler = new Profiler();
+        ctx.setProfiler(profiler);
+        assertTrue(m.match("aaab", ctx));
+
+        List<Profiler.Stats> flat = profiler.flat();
+        assertEquals(3, flat.size());
+        Profiler.Stats root = find(flat, "root");
+        assertEquals(1, root.invocations());
+        assertEquals(1, root.positions());
+        Profiler.Stats many = find(flat, "many");
+        assertEquals(1, many.invocations());
+        assertEquals(4, many.positions());
+        assertEquals(4, many.maxSetSize());
+        Profiler.Stats stats = find(flat, "a");
+        assertEquals(4, stats.invocations());
+        assertEquals(3, stats.positions());
+        assertEquals(1, stats.maxSetSize());
+        assertTrue(root.nanos() >= many.nanos());
+        assertTrue(root.selfNanos() <= root.nanos());
+
+        // 调用树
+        List<Profiler.Stats> tree = profiler.tree();
+        assertEquals(1, tree.size());
+        assertEquals("root", tree.get(0).name());
+        assertEquals("many", tree.get(0).children().get(0).name());
+        assertEquals("a", tree.get(0).children().get(0).children().get(0).name());
+        assertEquals(4, tree.get(0).children().get(0).children().get(0).invocations());
+
+        String treeReport = profiler.treeReport();
+        assertTrue(treeReport.contains("root"));
+        assertTrue(treeReport.contains("    a"));
+        assertTrue(profiler.flatReport().contains("many"));
+
+        profiler.clear();
+        assertTrue(profiler.flat().isEmpty());
+    }
+
+    @Test
+    public void testSharedResult() {
+        // or的两个分支和and的每次rhs调用写入同一个结果集合，已有的位置同样计入
+        Matcher m = ch('a').profile("p").or(chs('a', 'b').profile("q"))
+            .and(ch('b').many().profile("r"));
+        MatchContext ctx = new MatchContext();
+        Profiler profiler = new Profiler();
+        ctx.setProfiler(profiler);
+        PositionSet result = new PositionSet();
+        m.parse("abb", 0, result, ctx);
+        assertEquals(PositionSet.of(1, 2, 3), result);
+
+        List<Profiler.Stats> flat = profiler.flat();
+        assertEquals(1, find(flat, "p").positions());
+        assertEquals(1, find(flat, "q").positions());
+        assertEquals(1, find(flat, "q").maxSetSize());
+        assertEquals(1, find(flat, "r").invocations());
+        assertEquals(3, find(flat, "r").positions());
+    }
+
+    @Test
+    public void testDisabled() {
+        Matcher m = ch('a').profile("a").many();
+        Profiler profiler = new Profiler();
+        assertTrue(m.match("aaa"));
+        assertTrue(profiler.flat().isEmpty());
+
+        // 化简和编译不受profile标记影响
+        assertEquals("profile(a, [a])*", m.optimize().toString());
+        assertInstanceOf(DfaMatcher.class, m.compile());
+        assertTrue(m.compile().match("aaa"));
+    }
+
+    @Test
+    public void testRecursiveRules() {
+        Matcher expr = LeftRecursiveArithmetic.expr;
+        Profiler profiler = new Profiler();
+        MatchContext ctx = MatchContext.memoized();
+        ctx.setProfiler(profiler);
+        Matcher profiled = expr.profile("expr");
+        assertTrue(profiled.match("1+2*3-4", ctx));
+        assertEquals(1, find(profiler.flat(), "expr").invocations());
+
+        // 超过调用栈深度后由StackEngine继续统计
+        Matcher[] holder = new Matcher[1];
+        Matcher nested = ch('(').and(lazy(() -> holder[0]).profile("nested").repeat(0, 1)).and(ch(')'));
+        holder[0] = nested;
+        String input = "(".repeat(5000) + ")".repeat(5000);
+        MatchContext deep = new MatchContext();
+        deep.setProfiler(profiler);
+        profiler.clear();
+        assertTrue(nested.match(input, deep));
+        // 最内层的左括号之后也会尝试一次nested
+        assertEquals(5000, find(profiler.flat(), "nested").invocations());
+        assertEquals(4999, find(profiler.flat(), "nested").positions());
+    }
+
+    @Test
+    public void testException() {
+        Matcher m = ch('a').flatMap(s -> {
+            throw new IllegalStateException();
+        }).profile("inner").profile("outer");
+        Profiler profiler = new Profiler();
+        MatchContext ctx = new MatchContext();
+        ctx.setProfiler(profiler);
+        assertThrows(IllegalStateException.class, () -> m.match("a", ctx));
+
+        // 异常退出后统计仍然配对，后续的调用挂在调用树的顶层
+        Matcher n = ch('b').profile("b");
+        assertTrue(n.match("b", ctx));
+        assertEquals(List.of("outer", "b"), profiler.tree().stream().map(Profiler.Stats::name).toList());
+    }
+}
@@ -6,101 +6,6 @@ import static byx.matcher.Matcher.*;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
-/**
- * 括号匹配校验
- * expr = term+
- * term = "()"
- *      | '(' expr ')'
- */
-class BracketMatcher {
-    private static final Matcher term = oneOf(
-        str("()"),
-        ch('(').and(lazy(() -> BracketMatcher.expr)).and(')')
-    );
-    private static final Matcher expr = term.many1();
-
-    public static boolean isBracketMatch(String s) {
-        return expr.match(s);
-    }
-}
-
-/**
- * 算数表达式校验
- * expr = term ('+'|'-' term)+
- * term = fact ('*'|'/' fact)+
- * fact = [0-9]+
- *      | '-' fact
- *      | '(' expr ')'
- */
-class ArithmeticExprValidator {
-    private static final Matcher fact = oneOf(
-        range('0', '9').many1(),
-        ch('-').and(lazy(() -> ArithmeticExprValidator.fact)),
-        ch('(').and(lazy(() -> ArithmeticExprValidator.expr)).and(')')
-    );
-    private static final Matcher term = fact.and(chs('*', '/').and(fact).many());
-    private static final Matcher expr = term.and(chs('+', '-').and(term).many());
-
-    public static boolean isValidExpr(String s) {
-        return expr.match(s);
-    }
-}
-
-/**
- * json字符串校验
- * jsonObj = number | string | bool | arr | obj
- * number  = integer | decimal
- * integer = [0-9]+
- * decimal = [0-9]+ '.' [0-9]+
- * string  = '"' (.*) '"'
- * bool    = "true" | "false"
- * arr     = "[]"
- *         | '[' jsonObj (',' jsonObj)* ']'
- * field   = string ':' jsonObj
- * obj     = "{}"
- *         | '{' field (',' field)* '}'
- */
-class JsonValidator {
-    private static final Matcher blank = chs(' ', '\t', '\n', '\r').many();
-    private static final Matcher objStart = withBlank(ch('{'));
-    private static final Matcher objEnd = withBlank(ch('}'));
-    private static final Matcher arrStart = withBlank(ch('['));
-    private static final Matcher arrEnd = withBlank(ch(']'));
-    private static final Matcher colon = withBlank(ch(':'));
-    private static final Matcher comma = withBlank(ch(','));
-
-    private static final Matcher jsonObj = oneOf(
-        lazy(() -> JsonValidator.number),
-        lazy(() -> JsonValidator.string),
-        lazy(() -> JsonValidator.bool),
-        lazy(() -> JsonValidator.arr),
-        lazy(() -> JsonValidator.obj)
-    );
-    private static final Matcher digits = range('0', '9').many1();
-    private static final Matcher integer = digits;
-    private static final Matcher decimal = seq(digits, ch('.'), digits);
-    private static final Matcher number = integer.or(decimal);
-    private static final Matcher string = seq(ch('"'), not('"').many(), ch('"'));
-    private static final Matcher bool = strs("true", "false");
-    private static final Matcher arr = oneOf(
-        arrStart.and(arrEnd),
-        seq(arrStart, jsonObj.and(comma.and(jsonObj).many()), arrEnd)
-    );
-    private static final Matcher field = seq(string, colon, jsonObj);
-    private static final Matcher obj = oneOf(
-        objStart.and(objEnd),
-        seq(objStart, field.and(comma.and(field).many()), objEnd)
-    );
-
-    private static Matcher withBlank(Matcher m) {
-        return seq(blank, m, blank);
-    }
-
-    public static boolean isValidJson(String s) {
-        return jsonObj.match(s);
-    }
-}
-
 public class RecursiveTest {
     @Test
     public void testBracketMatcher() {
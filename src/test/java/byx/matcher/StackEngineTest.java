@@ -0,0 +1,99 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StackEngineTest {
+    private static PositionSet recursive(Matcher m, String s, int index) {
+        PositionSet result = new PositionSet();
+        m.parse(s, index, result, new MatchContext());
+        return result;
+    }
+
+    private static PositionSet explicit(Matcher m, String s, int index, MatchContext ctx) {
+        PositionSet result = new PositionSet();
+        StackEngine.parse(m, s, index, result, ctx);
+        return result;
+    }
+
+    @Test
+    public void testSameAsRecursive() {
+        Matcher a = ch('a'), b = ch('b');
+        Matcher[] matchers = {
+            a.and(b).or(a).many(),
+            a.many1().repeat(2, 3),
+            a.repeat(0, 1).repeat(5),
+            a.or(b).repeat(1, 4).and(b),
+            a.many().flatMap(s -> str(s.replace('a', 'b'))),
+            BracketMatcher.expr,
+            LeftRecursiveArithmetic.expr,
+            IndirectLeftRecursion.a,
+            strs("ab", "abb", "b").many(),
+        };
+        String alphabet = "ab()1+*yzx";
+        Random random = new Random(11);
+        for (int n = 0; n < 300; n++) {
+            StringBuilder sb = new StringBuilder();
+            int len = random.nextInt(10);
+            for (int i = 0; i < len; i++) {
+                sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String s = sb.toString();
+            for (Matcher m : matchers) {
+                for (int i = 0; i <= s.length(); i++) {
+                    PositionSet expected = recursive(m, s, i);
+                    assertEquals(expected, explicit(m, s, i, new MatchContext()), m + " " + s);
+                    assertEquals(expected, explicit(m, s, i, MatchContext.memoized()), m + " " + s);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDeepNesting() {
+        int depth = 100000;
+        String s = "(".repeat(depth - 1) + "()" + ")".repeat(depth - 1);
+        assertTrue(BracketMatcher.isBracketMatch(s));
+        assertFalse(BracketMatcher.isBracketMatch(s + ")"));
+        assertTrue(BracketMatcher.expr.match(s, MatchContext.memoized()));
+
+        String json = "[".repeat(depth) + "1" + "]".repeat(depth);
+        assertTrue(JsonValidator.isValidJson(json));
+        assertFalse(JsonValidator.isValidJson(json.substring(1)));
+    }
+
+    @Test
+    public void testLongChain() {
+        Matcher m = ch('0');
+        for (int i = 1; i < 50000; i++) {
+            m = m.or(str(String.valueOf(i)));
+        }
+        assertTrue(m.match("49999"));
+        assertFalse(m.match("50000"));
+
+        Matcher seq = ch('x');
+        for (int i = 0; i < 50000; i++) {
+            seq = seq.and(ch('x'));
+        }
+        assertTrue(seq.match("x".repeat(50001)));
+    }
+
+    @Test
+    public void testException() {
+        Matcher boom = ch(c -> {
+            if (c == '!') {
+                throw new IllegalStateException();
+            }
+            return c == 'a';
+        });
+        Matcher m = lazy(() -> boom.many());
+        MatchContext ctx = MatchContext.memoized();
+        assertThrows(IllegalStateException.class, () -> explicit(m, "aa!", 0, ctx));
+        assertEquals(PositionSet.of(0, 1, 2), explicit(m, "aab", 0, ctx));
+        assertTrue(m.match("aaa", ctx));
+    }
+}
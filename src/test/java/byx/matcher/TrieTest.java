@@ -0,0 +1,116 @@
+package byx.matcher;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static byx.matcher.Matcher.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrieTest {
+    private static String randomWord(Random random, String alphabet, int maxLen) {
+        StringBuilder sb = new StringBuilder();
+        int len = random.nextInt(maxLen + 1);
+        for (int i = 0; i < len; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void testDoubleArrayTrie() {
+        DoubleArrayTrie trie = DoubleArrayTrie.build("he", "she", "his", "hers", "he", "中文", "中");
+        assertEquals(6, trie.wordCount);
+        int s = trie.next(DoubleArrayTrie.ROOT, 'h');
+        assertFalse(trie.isTerminal(s));
+        s = trie.next(s, 'e');
+        assertTrue(trie.isTerminal(s));
+        assertEquals(2, trie.depth[s]);
+        assertEquals(-1, trie.next(s, 'x'));
+        assertEquals(-1, trie.next(s, 'z'));
+        assertTrue(trie.isTerminal(trie.next(DoubleArrayTrie.ROOT, '中')));
+        assertTrue(trie.memoryBytes() > 0);
+    }
+
+    @Test
+    public void testStrs() {
+        Matcher m = strs("he", "she", "his", "hers", "");
+        assertInstanceOf(TrieMatcher.class, m);
+        assertEquals(PositionSet.of(0, 2, 4).toSet(), m.parse("hers", 0));
+        assertEquals(PositionSet.of(1, 3).toSet(), m.parse("sher", 1));
+        assertTrue(m.match("she"));
+        assertTrue(m.match(""));
+        assertFalse(m.match("sh"));
+        assertTrue(m.many().match("hishersshe"));
+
+        MatchContext ctx = new MatchContext();
+        assertFalse(strs("hello", "help").match("helium", ctx));
+        assertEquals(3, ctx.furthestPosition());
+    }
+
+    @Test
+    public void testOneOfLiterals() {
+        assertInstanceOf(TrieMatcher.class, oneOf(str("ab"), ch('c'), str("abc")));
+        assertInstanceOf(CharClassMatcher.class, oneOf(ch('a'), ch('b')).optimize());
+        assertFalse(oneOf(ch('a'), ch('b')) instanceof TrieMatcher);
+        assertFalse(oneOf(str("ab"), range('0', '9')) instanceof TrieMatcher);
+    }
+
+    @Test
+    public void testSameAsOr() {
+        Random random = new Random(7);
+        for (int n = 0; n < 100; n++) {
+            String[] words = new String[2 + random.nextInt(10)];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = randomWord(random, "abc", 5);
+            }
+            Matcher trie = strs(words[0], words[1], Arrays.copyOfRange(words, 2, words.length));
+            Matcher or = Arrays.stream(words).map(Matcher::str).reduce(Matcher::or).orElseThrow();
+            Matcher compiled = trie.compile();
+            assertInstanceOf(DfaMatcher.class, compiled);
+            for (int k = 0; k < 20; k++) {
+                String s = randomWord(random, "abc", 10);
+                for (int i = 0; i <= s.length(); i++) {
+                    assertEquals(or.parse(s, i), trie.parse(s, i), Arrays.toString(words) + " " + s);
+                    assertEquals(or.parse(s, i), compiled.parse(s, i), Arrays.toString(words) + " " + s);
+                }
+                for (int i = 0; i <= s.length(); i++) {
+                    MatchResult expected = or.find(s, i).orElse(null);
+                    MatchResult actual = trie.find(s, i).orElse(null);
+                    assertEquals(String.valueOf(expected), String.valueOf(actual), Arrays.toString(words) + " " + s);
+                    if (expected != null) {
+                        assertEquals(expected.start(), actual.start());
+                        assertEquals(expected.end(), actual.end());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testAhoCorasick() {
+        Matcher m = strs("he", "she", "his", "hers");
+        List<String> found = m.findAll("ushers and this").stream().map(MatchResult::group).toList();
+        assertEquals(List.of("she", "his"), found);
+        assertEquals(1, m.find("ahishers").orElseThrow().start());
+        assertEquals("she", m.find("ahishers", 2).orElseThrow().group());
+        assertEquals("hers", m.find("ahishers", 4).orElseThrow().group());
+        assertTrue(m.find("xyz").isEmpty());
+    }
+
+    @Test
+    public void testLargeWordList() {
+        Random random = new Random(1);
+        String[] words = new String[50000];
+        for (int i = 0; i < words.length; i++) {
+            words[i] = randomWord(random, "abcdefghijklmnopqrstuvwxyz", 12) + i;
+        }
+        Matcher m = strs(words[0], words[1], Arrays.copyOfRange(words, 2, words.length));
+        for (String w : words) {
+            assertTrue(m.match(w), w);
+        }
+        assertFalse(m.match("not-a-word"));
+    }
+}